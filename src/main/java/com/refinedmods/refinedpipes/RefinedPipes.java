@@ -37,5 +37,7 @@ public class RefinedPipes {
         FMLJavaModLoadingContext.get().getModEventBus().addGenericListener(ContainerType.class, commonSetup::onRegisterContainers);
 
         MinecraftForge.EVENT_BUS.addListener(commonSetup::onWorldTick);
+        MinecraftForge.EVENT_BUS.addListener(commonSetup::onChunkLoad);
+        MinecraftForge.EVENT_BUS.addListener(commonSetup::onChunkUnload);
     }
 }
@@ -81,8 +81,9 @@ public abstract class PipeBlock extends Block {
         if (!world.isRemote) {
             Pipe pipe = NetworkManager.get(world).getPipe(pos);
 
+            // Pipes being added or removed are handled by the NetworkManager, here only the destinations can change.
             if (pipe != null && pipe.getNetwork() != null) {
-                pipe.getNetwork().scanGraph(world, pos);
+                pipe.getNetwork().refreshDestinations(pipe);
             }
         }
     }
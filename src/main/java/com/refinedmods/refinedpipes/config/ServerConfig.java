@@ -66,7 +66,7 @@ public class ServerConfig {
                 {
                     basicExtractorAttachment = new ExtractorAttachment(
                         "basic",
-                        20 * 3, 8, // item tick interval, items to extract
+                        20 * 3, 8, 1, // item tick interval, items to extract, stacks to extract
                         0, 100, // fluid tick interval, fluids to extract
                         0, // filter slots
                         false, // redstone mode
@@ -76,7 +76,7 @@ public class ServerConfig {
                     );
                     improvedExtractorAttachment = new ExtractorAttachment(
                         "improved",
-                        20 * 2, 16, // item tick interval, items to extract
+                        20 * 2, 16, 1, // item tick interval, items to extract, stacks to extract
                         0, 400, // fluid tick interval, fluids to extract
                         4, // filter slots
                         true, // redstone mode
@@ -86,7 +86,7 @@ public class ServerConfig {
                     );
                     advancedExtractorAttachment = new ExtractorAttachment(
                         "advanced",
-                        20, 32, // item tick interval, items to extract
+                        20, 32, 1, // item tick interval, items to extract, stacks to extract
                         0, 800, // fluid tick interval, fluids to extract
                         8, // filter slots
                         true, // redstone mode
@@ -96,7 +96,7 @@ public class ServerConfig {
                     );
                     eliteExtractorAttachment = new ExtractorAttachment(
                         "elite",
-                        10, 64, // item tick interval, items to extract
+                        10, 64, 1, // item tick interval, items to extract, stacks to extract
                         0, 1600, // fluid tick interval, fluids to extract
                         12, // filter slots
                         true, // redstone mode
@@ -106,7 +106,7 @@ public class ServerConfig {
                     );
                     ultimateExtractorAttachment = new ExtractorAttachment(
                         "ultimate",
-                        10, 64, // item tick interval, items to extract
+                        10, 64, 4, // item tick interval, items to extract, stacks to extract
                         0, 3200, // fluid tick interval, fluids to extract
                         15, // filter slots
                         true, // redstone mode
@@ -263,6 +263,7 @@ public class ServerConfig {
     public class ExtractorAttachment {
         private final ForgeConfigSpec.IntValue itemTickInterval;
         private final ForgeConfigSpec.IntValue itemsToExtract;
+        private final ForgeConfigSpec.IntValue stacksToExtract;
         private final ForgeConfigSpec.IntValue fluidTickInterval;
         private final ForgeConfigSpec.IntValue fluidsToExtract;
         private final ForgeConfigSpec.IntValue filterSlots;
@@ -275,6 +276,7 @@ public class ServerConfig {
             String type,
             int defaultItemTickInterval,
             int defaultItemsToExtract,
+            int defaultStacksToExtract,
             int defaultFluidTickInterval,
             int defaultFluidsToExtract,
             int defaultFilterSlots,
@@ -286,6 +288,7 @@ public class ServerConfig {
 
             itemTickInterval = builder.comment("The interval between item extractions in ticks. Lower is faster.").defineInRange("itemTickInterval", defaultItemTickInterval, 0, Integer.MAX_VALUE);
             itemsToExtract = builder.comment("The amount of items to extract per extraction.").defineInRange("itemsToExtract", defaultItemsToExtract, 0, 64);
+            stacksToExtract = builder.comment("The amount of stacks to extract per extraction, each stack can contain up to the amount of items to extract.").defineInRange("stacksToExtract", defaultStacksToExtract, 1, 64);
             fluidTickInterval = builder.comment("The interval between fluid extractions in ticks. Lower is faster.").defineInRange("fluidTickInterval", defaultFluidTickInterval, 0, Integer.MAX_VALUE);
             fluidsToExtract = builder.comment("The amount of fluids in mB to extract per extraction.").defineInRange("fluidsToExtract", defaultFluidsToExtract, 0, Integer.MAX_VALUE);
             filterSlots = builder.comment("The amount of filter slots allowed.").defineInRange("filterSlots", defaultFilterSlots, 0, com.refinedmods.refinedpipes.network.pipe.attachment.extractor.ExtractorAttachment.MAX_FILTER_SLOTS);
@@ -305,6 +308,10 @@ public class ServerConfig {
             return itemsToExtract.get();
         }
 
+        public int getStacksToExtract() {
+            return stacksToExtract.get();
+        }
+
         public int getFluidTickInterval() {
             return fluidTickInterval.get();
         }
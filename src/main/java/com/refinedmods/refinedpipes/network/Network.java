@@ -5,16 +5,24 @@ import com.refinedmods.refinedpipes.network.graph.NetworkGraphScannerResult;
 import com.refinedmods.refinedpipes.network.pipe.Destination;
 import com.refinedmods.refinedpipes.network.pipe.DestinationType;
 import com.refinedmods.refinedpipes.network.pipe.Pipe;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 public abstract class Network {
     protected final NetworkGraph graph = new NetworkGraph(this);
+    private final Set<Pipe> tickingPipes = new LinkedHashSet<>();
+    private final Long2IntOpenHashMap pipesPerChunk = new Long2IntOpenHashMap(); // Keyed by ChunkPos#asLong.
     private final String id;
     private BlockPos originPos;
     private boolean didDoInitialScan;
@@ -28,14 +36,36 @@ public abstract class Network {
         this.originPos = originPos;
     }
 
+    public BlockPos getOriginPos() {
+        return originPos;
+    }
+
     public String getId() {
         return id;
     }
 
     public NetworkGraphScannerResult scanGraph(World world, BlockPos pos) {
+        didDoInitialScan = true;
+
         return graph.scan(world, pos);
     }
 
+    public void addPipe(Pipe pipe) {
+        graph.addPipe(pipe);
+    }
+
+    public void joinPipes(Collection<Pipe> pipes) {
+        graph.joinPipes(pipes);
+    }
+
+    public void removePipes(Collection<Pipe> pipes) {
+        graph.removePipes(pipes);
+    }
+
+    public void refreshDestinations(Pipe pipe) {
+        graph.refreshDestinations(pipe);
+    }
+
     public List<Destination> getDestinations(DestinationType type) {
         return graph.getDestinations(type);
     }
@@ -49,16 +79,57 @@ public abstract class Network {
 
     public void update(World world) {
         if (!didDoInitialScan) {
-            didDoInitialScan = true;
-
             scanGraph(world, originPos);
         }
 
-        graph.getPipes().forEach(Pipe::update);
+        NetworkManager networkManager = NetworkManager.get(world);
+
+        for (Pipe pipe : tickingPipes) {
+            if (networkManager.isChunkLoaded(pipe.getPos())) {
+                pipe.update();
+            }
+        }
+    }
+
+    // Called instead of update while the network is frozen, see NetworkManager#isNetworkLoaded.
+    public void freeze(World world) {
+    }
+
+    public void onPipeJoined(Pipe pipe) {
+        pipesPerChunk.addTo(NetworkManager.getChunk(pipe.getPos().toLong()), 1);
+
+        updateTicking(pipe);
+    }
+
+    public void onPipeLeft(Pipe pipe) {
+        long chunk = NetworkManager.getChunk(pipe.getPos().toLong());
+
+        if (pipesPerChunk.addTo(chunk, -1) <= 1) {
+            pipesPerChunk.remove(chunk);
+        }
+
+        updateTicking(pipe);
+    }
+
+    public LongSet getChunks() {
+        return pipesPerChunk.keySet();
+    }
+
+    public void updateTicking(Pipe pipe) {
+        if (pipe.getNetwork() == this && pipe.isTicking()) {
+            tickingPipes.add(pipe);
+        } else {
+            tickingPipes.remove(pipe);
+        }
+    }
+
+    public Set<Pipe> getPipes() {
+        return graph.getPipes();
     }
 
+    @Nullable
     public Pipe getPipe(BlockPos pos) {
-        return graph.getPipes().stream().filter(p -> p.getPos().equals(pos)).findFirst().orElse(null);
+        return graph.getPipe(pos);
     }
 
     public abstract void onMergedWith(Network mainNetwork);
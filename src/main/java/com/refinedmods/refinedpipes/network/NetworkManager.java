@@ -1,17 +1,26 @@
 package com.refinedmods.refinedpipes.network;
 
 import com.refinedmods.refinedpipes.RefinedPipes;
-import com.refinedmods.refinedpipes.network.graph.NetworkGraphScannerResult;
+import com.refinedmods.refinedpipes.network.graph.NetworkGraphSplitDetector;
+import com.refinedmods.refinedpipes.network.pipe.Destination;
+import com.refinedmods.refinedpipes.network.pipe.DestinationType;
 import com.refinedmods.refinedpipes.network.pipe.Pipe;
 import com.refinedmods.refinedpipes.network.pipe.PipeFactory;
 import com.refinedmods.refinedpipes.network.pipe.PipeRegistry;
+import com.refinedmods.refinedpipes.network.pipe.ReceiverHandlerCache;
 import com.refinedmods.refinedpipes.network.pipe.item.ItemPipe;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.nbt.INBT;
 import net.minecraft.nbt.ListNBT;
 import net.minecraft.util.Direction;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.World;
 import net.minecraft.world.server.ServerWorld;
 import net.minecraft.world.storage.WorldSavedData;
@@ -36,7 +45,12 @@ public class NetworkManager extends WorldSavedData {
 
     private final World world;
     private final Map<String, Network> networks = new HashMap<>();
-    private final Map<BlockPos, Pipe> pipes = new HashMap<>();
+    // Pipes are stored per chunk (keyed by ChunkPos#asLong), and then by BlockPos#toLong.
+    private final Long2ObjectMap<Long2ObjectMap<Pipe>> pipesByChunk = new Long2ObjectOpenHashMap<>();
+    // Capability caches of the destinations per chunk of their receiver, so that a chunk unload only has to look at its own.
+    private final Long2ObjectMap<List<ReceiverHandlerCache>> handlerCachesByChunk = new Long2ObjectOpenHashMap<>();
+    private final LongSet loadedChunks = new LongOpenHashSet();
+    private final Set<Network> networksToScan = new LinkedHashSet<>();
 
     public NetworkManager(String name, World world) {
         super(name);
@@ -61,22 +75,30 @@ public class NetworkManager extends WorldSavedData {
             throw new RuntimeException("Network " + id + " not found");
         }
 
-        networks.remove(id);
+        Network network = networks.remove(id);
+
+        networksToScan.remove(network);
+
+        for (DestinationType type : DestinationType.values()) {
+            network.getDestinations(type).forEach(this::removeDestination);
+        }
 
         LOGGER.debug("Network {} removed", id);
 
         markDirty();
     }
 
-    private void formNetworkAt(World world, BlockPos pos, ResourceLocation type) {
+    private void formNetworkAt(BlockPos pos, ResourceLocation type, Collection<Pipe> pipes) {
         Network network = NetworkRegistry.INSTANCE.getFactory(type).create(pos);
 
         addNetwork(network);
 
-        network.scanGraph(world, pos);
+        network.joinPipes(pipes);
+
+        scheduleScan(network);
     }
 
-    private void mergeNetworksIntoOne(Set<Pipe> candidates, World world, BlockPos pos) {
+    private void mergeNetworksIntoOne(Set<Pipe> candidates, Pipe pipe) {
         if (candidates.isEmpty()) {
             throw new RuntimeException("Cannot merge networks: no candidates");
         }
@@ -107,20 +129,37 @@ public class NetworkManager extends WorldSavedData {
                 mergedNetworks.add(otherNetwork);
 
                 removeNetwork(otherNetwork.getId());
+
+                mainNetwork.joinPipes(otherNetwork.getPipes());
             }
         }
 
-        mainNetwork.scanGraph(world, pos);
+        mainNetwork.joinPipes(Collections.singleton(pipe));
+
+        scheduleScan(mainNetwork);
 
         mergedNetworks.forEach(n -> n.onMergedWith(mainNetwork));
     }
 
+    // Scans are done at the end of the tick, so a network only gets scanned once no matter how many times it changed.
+    private void scheduleScan(Network network) {
+        networksToScan.add(network);
+    }
+
+    public void scanScheduledNetworks() {
+        for (Network network : networksToScan) {
+            network.scanGraph(world, network.getOriginPos());
+        }
+
+        networksToScan.clear();
+    }
+
     public void addPipe(Pipe pipe) {
-        if (pipes.containsKey(pipe.getPos())) {
+        if (getPipe(pipe.getPos()) != null) {
             throw new RuntimeException("Pipe at " + pipe.getPos() + " already exists");
         }
 
-        pipes.put(pipe.getPos(), pipe);
+        putPipe(pipe);
 
         LOGGER.debug("Pipe added at {}", pipe.getPos());
 
@@ -129,9 +168,12 @@ public class NetworkManager extends WorldSavedData {
         Set<Pipe> adjacentPipes = findAdjacentPipes(pipe.getPos(), pipe.getNetworkType());
 
         if (adjacentPipes.isEmpty()) {
-            formNetworkAt(pipe.getWorld(), pipe.getPos(), pipe.getNetworkType());
+            formNetworkAt(pipe.getPos(), pipe.getNetworkType(), Collections.singleton(pipe));
+        } else if (isSingleNetwork(adjacentPipes)) {
+            // Nothing to merge, the pipe can be added to the existing network without rescanning it.
+            adjacentPipes.iterator().next().getNetwork().addPipe(pipe);
         } else {
-            mergeNetworksIntoOne(adjacentPipes, pipe.getWorld(), pipe.getPos());
+            mergeNetworksIntoOne(adjacentPipes, pipe);
         }
     }
 
@@ -145,7 +187,13 @@ public class NetworkManager extends WorldSavedData {
             LOGGER.warn("Removed pipe at {} has no associated network", pipe.getPos());
         }
 
-        pipes.remove(pipe.getPos());
+        long chunk = getChunk(pipe.getPos().toLong());
+
+        Long2ObjectMap<Pipe> pipesInChunk = pipesByChunk.get(chunk);
+        pipesInChunk.remove(pipe.getPos().toLong());
+        if (pipesInChunk.isEmpty()) {
+            pipesByChunk.remove(chunk);
+        }
 
         LOGGER.debug("Pipe removed at {}", pipe.getPos());
 
@@ -156,9 +204,25 @@ public class NetworkManager extends WorldSavedData {
         }
     }
 
+    private boolean isSingleNetwork(Set<Pipe> pipes) {
+        Network network = null;
+
+        for (Pipe pipe : pipes) {
+            if (pipe.getNetwork() == null || (network != null && network != pipe.getNetwork())) {
+                return false;
+            }
+
+            network = pipe.getNetwork();
+        }
+
+        return network != null;
+    }
+
     private void splitNetworks(Pipe originPipe) {
+        Set<Pipe> adjacentPipes = findAdjacentPipes(originPipe.getPos(), originPipe.getNetworkType());
+
         // Sanity checks
-        for (Pipe adjacent : findAdjacentPipes(originPipe.getPos(), originPipe.getNetworkType())) {
+        for (Pipe adjacent : adjacentPipes) {
             if (adjacent.getNetwork() == null) {
                 throw new RuntimeException("Adjacent pipe has no network");
             }
@@ -168,52 +232,51 @@ public class NetworkManager extends WorldSavedData {
             }
         }
 
-        // We can assume all adjacent pipes (with the same network type) share the same network with the removed pipe.
-        // That means it doesn't matter which pipe network we use for splitting, we'll take the first found one.
-        Pipe otherPipeInNetwork = findFirstAdjacentPipe(originPipe.getPos(), originPipe.getNetworkType());
-
-        if (otherPipeInNetwork != null) {
-            otherPipeInNetwork.getNetwork().setOriginPos(otherPipeInNetwork.getPos());
-            markDirty();
-
-            NetworkGraphScannerResult result = otherPipeInNetwork.getNetwork().scanGraph(
-                otherPipeInNetwork.getWorld(),
-                otherPipeInNetwork.getPos()
-            );
-
-            // For sanity checking
-            boolean foundRemovedPipe = false;
-
-            for (Pipe removed : result.getRemovedPipes()) {
-                // It's obvious that our removed pipe is removed.
-                // We don't want to create a new splitted network for this one.
-                if (removed.getPos().equals(originPipe.getPos())) {
-                    foundRemovedPipe = true;
-                    continue;
-                }
-
-                // The formNetworkAt call below can let these removed pipes join a network again.
-                // We only have to form a new network when necessary, hence the null check.
-                if (removed.getNetwork() == null) {
-                    formNetworkAt(removed.getWorld(), removed.getPos(), removed.getNetworkType());
-                }
-            }
+        Network network = originPipe.getNetwork();
+
+        if (adjacentPipes.isEmpty()) {
+            LOGGER.debug("Removing empty network {}", network.getId());
 
-            if (!foundRemovedPipe) {
-                throw new RuntimeException("Didn't find removed pipe when splitting network");
+            removeNetwork(network.getId());
+
+            return;
+        }
+
+        // A pipe with only one adjacent pipe can't split the network.
+        List<Set<Pipe>> detachedPipes = adjacentPipes.size() == 1
+            ? Collections.emptyList()
+            : new NetworkGraphSplitDetector(this, originPipe.getNetworkType()).findDetachedPipes(adjacentPipes);
+
+        Set<Pipe> removedPipes = new HashSet<>();
+        removedPipes.add(originPipe);
+        detachedPipes.forEach(removedPipes::addAll);
+
+        // The origin has to be in the part of the network that is kept.
+        for (Pipe adjacent : adjacentPipes) {
+            if (!removedPipes.contains(adjacent)) {
+                network.setOriginPos(adjacent.getPos());
+                markDirty();
+                break;
             }
-        } else {
-            LOGGER.debug("Removing empty network {}", originPipe.getNetwork().getId());
+        }
 
-            removeNetwork(originPipe.getNetwork().getId());
+        network.removePipes(removedPipes);
+
+        // Every part that was split off becomes a new network.
+        for (Set<Pipe> pipes : detachedPipes) {
+            Pipe pipe = pipes.iterator().next();
+
+            formNetworkAt(pipe.getPos(), pipe.getNetworkType(), pipes);
         }
     }
 
     private Set<Pipe> findAdjacentPipes(BlockPos pos, ResourceLocation networkType) {
         Set<Pipe> pipes = new HashSet<>();
 
+        long packedPos = pos.toLong();
+
         for (Direction dir : Direction.values()) {
-            Pipe pipe = getPipe(pos.offset(dir));
+            Pipe pipe = getPipe(BlockPos.offset(packedPos, dir));
 
             if (pipe != null && pipe.getNetworkType().equals(networkType)) {
                 pipes.add(pipe);
@@ -223,22 +286,113 @@ public class NetworkManager extends WorldSavedData {
         return pipes;
     }
 
+    private void putPipe(Pipe pipe) {
+        pipesByChunk
+            .computeIfAbsent(getChunk(pipe.getPos().toLong()), chunk -> new Long2ObjectOpenHashMap<>())
+            .put(pipe.getPos().toLong(), pipe);
+    }
+
     @Nullable
-    private Pipe findFirstAdjacentPipe(BlockPos pos, ResourceLocation networkType) {
-        for (Direction dir : Direction.values()) {
-            Pipe pipe = getPipe(pos.offset(dir));
+    public Pipe getPipe(BlockPos pos) {
+        return getPipe(pos.toLong());
+    }
 
-            if (pipe != null && pipe.getNetworkType().equals(networkType)) {
-                return pipe;
+    @Nullable
+    public Pipe getPipe(long pos) {
+        Long2ObjectMap<Pipe> pipesInChunk = pipesByChunk.get(getChunk(pos));
+
+        return pipesInChunk == null ? null : pipesInChunk.get(pos);
+    }
+
+    public static long getChunk(long pos) {
+        return ChunkPos.asLong(BlockPos.unpackX(pos) >> 4, BlockPos.unpackZ(pos) >> 4);
+    }
+
+    public void onChunkLoaded(ChunkPos pos) {
+        loadedChunks.add(pos.asLong());
+    }
+
+    public void onChunkUnloaded(ChunkPos pos) {
+        loadedChunks.remove(pos.asLong());
+
+        // The tile entities are gone, so are their capabilities.
+        List<ReceiverHandlerCache> handlerCachesInChunk = handlerCachesByChunk.get(pos.asLong());
+        if (handlerCachesInChunk != null) {
+            handlerCachesInChunk.forEach(ReceiverHandlerCache::invalidate);
+        }
+    }
+
+    // Destinations on the same side of a receiver share their capability cache.
+    public void addDestination(Destination destination) {
+        if (destination.getHandlerCache() != null) {
+            return;
+        }
+
+        BlockPos receiver = destination.getReceiver();
+        Direction side = destination.getIncomingDirection().getOpposite();
+
+        List<ReceiverHandlerCache> handlerCachesInChunk = handlerCachesByChunk.computeIfAbsent(getChunk(receiver.toLong()), chunk -> new ArrayList<>());
+
+        ReceiverHandlerCache handlerCache = null;
+        for (ReceiverHandlerCache candidate : handlerCachesInChunk) {
+            if (candidate.isOf(receiver, side)) {
+                handlerCache = candidate;
+                break;
             }
         }
 
-        return null;
+        if (handlerCache == null) {
+            handlerCache = new ReceiverHandlerCache(receiver, side);
+            handlerCachesInChunk.add(handlerCache);
+        }
+
+        handlerCache.retain();
+        destination.setHandlerCache(handlerCache);
     }
 
-    @Nullable
-    public Pipe getPipe(BlockPos pos) {
-        return pipes.get(pos);
+    public void removeDestination(Destination destination) {
+        ReceiverHandlerCache handlerCache = destination.getHandlerCache();
+        if (handlerCache == null) {
+            return;
+        }
+
+        destination.setHandlerCache(null);
+
+        if (handlerCache.release() > 0) {
+            return;
+        }
+
+        long chunk = getChunk(destination.getReceiver().toLong());
+
+        List<ReceiverHandlerCache> handlerCachesInChunk = handlerCachesByChunk.get(chunk);
+        handlerCachesInChunk.remove(handlerCache);
+        if (handlerCachesInChunk.isEmpty()) {
+            handlerCachesByChunk.remove(chunk);
+        }
+    }
+
+    // Used to skip pipes and destinations in unloaded chunks, instead of loading them with World#getTileEntity.
+    public boolean isChunkLoaded(BlockPos pos) {
+        return loadedChunks.contains(getChunk(pos.toLong()));
+    }
+
+    // Networks are frozen while all of their pipes are in unloaded chunks.
+    public boolean isNetworkLoaded(Network network) {
+        LongSet chunks = network.getChunks();
+
+        // Before the initial scan no pipes have joined the network yet.
+        if (chunks.isEmpty()) {
+            return isChunkLoaded(network.getOriginPos());
+        }
+
+        LongIterator it = chunks.iterator();
+        while (it.hasNext()) {
+            if (loadedChunks.contains(it.nextLong())) {
+                return true;
+            }
+        }
+
+        return false;
     }
 
     public Collection<Network> getNetworks() {
@@ -262,7 +416,7 @@ public class NetworkManager extends WorldSavedData {
 
             Pipe pipe = factory.createFromNbt(world, pipeTagCompound);
 
-            this.pipes.put(pipe.getPos(), pipe);
+            putPipe(pipe);
         }
 
         ListNBT nets = tag.getList("networks", Constants.NBT.TAG_COMPOUND);
@@ -293,11 +447,11 @@ public class NetworkManager extends WorldSavedData {
     @Override
     public CompoundNBT write(CompoundNBT tag) {
         ListNBT pipes = new ListNBT();
-        this.pipes.values().forEach(p -> {
+        this.pipesByChunk.values().forEach(pipesInChunk -> pipesInChunk.values().forEach(p -> {
             CompoundNBT pipeTag = new CompoundNBT();
             pipeTag.putString("id", p.getId().toString());
             pipes.add(p.writeToNbt(pipeTag));
-        });
+        }));
         tag.put("pipes", pipes);
 
         ListNBT networks = new ListNBT();
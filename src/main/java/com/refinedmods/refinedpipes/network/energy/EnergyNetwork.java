@@ -1,23 +1,29 @@
 package com.refinedmods.refinedpipes.network.energy;
 
 import com.refinedmods.refinedpipes.network.Network;
+import com.refinedmods.refinedpipes.network.NetworkManager;
 import com.refinedmods.refinedpipes.network.graph.NetworkGraphScannerResult;
 import com.refinedmods.refinedpipes.network.pipe.Destination;
 import com.refinedmods.refinedpipes.network.pipe.DestinationType;
+import com.refinedmods.refinedpipes.network.pipe.Pipe;
 import com.refinedmods.refinedpipes.network.pipe.energy.EnergyPipe;
 import com.refinedmods.refinedpipes.network.pipe.energy.EnergyPipeType;
-import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 import net.minecraftforge.energy.CapabilityEnergy;
 import net.minecraftforge.energy.IEnergyStorage;
 
+import java.util.Collection;
 import java.util.List;
 
 public class EnergyNetwork extends Network {
+    private static final int MAX_SLEEP_TICKS = 20;
+
     private final EnergyStorage energyStorage;
     private final EnergyPipeType pipeType;
+    private int sleepTicks;
+    private int idleTicks;
 
     public EnergyNetwork(BlockPos originPos, String id, EnergyPipeType pipeType) {
         super(originPos, id);
@@ -31,7 +37,7 @@ public class EnergyNetwork extends Network {
     public NetworkGraphScannerResult scanGraph(World world, BlockPos pos) {
         NetworkGraphScannerResult result = super.scanGraph(world, pos);
 
-        energyStorage.setCapacityAndMaxExtract(
+        updateCapacity(
             result.getFoundPipes()
                 .stream()
                 .filter(p -> p instanceof EnergyPipe)
@@ -39,11 +45,61 @@ public class EnergyNetwork extends Network {
                 .sum()
         );
 
+        wakeUp();
+
+        return result;
+    }
+
+    @Override
+    public void addPipe(Pipe pipe) {
+        super.addPipe(pipe);
+
+        if (pipe instanceof EnergyPipe) {
+            updateCapacity(energyStorage.getMaxEnergyStored() + ((EnergyPipe) pipe).getType().getCapacity());
+        }
+
+        wakeUp();
+    }
+
+    @Override
+    public void joinPipes(Collection<Pipe> pipes) {
+        super.joinPipes(pipes);
+
+        updateCapacity(energyStorage.getMaxEnergyStored() + pipes
+            .stream()
+            .filter(p -> p instanceof EnergyPipe)
+            .mapToInt(p -> ((EnergyPipe) p).getType().getCapacity())
+            .sum()
+        );
+
+        wakeUp();
+    }
+
+    @Override
+    public void removePipes(Collection<Pipe> pipes) {
+        super.removePipes(pipes);
+
+        updateCapacity(energyStorage.getMaxEnergyStored() - pipes
+            .stream()
+            .filter(p -> p instanceof EnergyPipe)
+            .mapToInt(p -> ((EnergyPipe) p).getType().getCapacity())
+            .sum()
+        );
+    }
+
+    @Override
+    public void refreshDestinations(Pipe pipe) {
+        super.refreshDestinations(pipe);
+
+        wakeUp();
+    }
+
+    private void updateCapacity(int capacity) {
+        energyStorage.setCapacityAndMaxExtract(capacity);
+
         if (energyStorage.getEnergyStored() > energyStorage.getMaxEnergyStored()) {
             energyStorage.setStored(energyStorage.getMaxEnergyStored());
         }
-
-        return result;
     }
 
     public EnergyStorage getEnergyStorage() {
@@ -54,6 +110,11 @@ public class EnergyNetwork extends Network {
     public void update(World world) {
         super.update(world);
 
+        if (sleepTicks > 0) {
+            sleepTicks--;
+            return;
+        }
+
         List<Destination> destinations = graph.getDestinations(DestinationType.ENERGY_STORAGE);
 
         if (!destinations.isEmpty()) {
@@ -61,13 +122,16 @@ public class EnergyNetwork extends Network {
                 return;
             }
 
+            boolean transferred = false;
+
+            NetworkManager networkManager = NetworkManager.get(world);
+
             for (Destination destination : destinations) {
-                TileEntity tile = destination.getConnectedPipe().getWorld().getTileEntity(destination.getReceiver());
-                if (tile == null) {
+                if (!networkManager.isChunkLoaded(destination.getReceiver())) {
                     continue;
                 }
 
-                IEnergyStorage handler = tile.getCapability(CapabilityEnergy.ENERGY, destination.getIncomingDirection().getOpposite()).orElse(null);
+                IEnergyStorage handler = destination.getHandler(CapabilityEnergy.ENERGY).orElse(null);
                 if (handler == null) {
                     continue;
                 }
@@ -87,15 +151,31 @@ public class EnergyNetwork extends Network {
                 }
 
                 int accepted = handler.receiveEnergy(toOffer, false);
+                if (accepted > 0) {
+                    transferred = true;
+                }
 
                 int remainder = toOffer - accepted;
                 if (remainder > 0) {
                     energyStorage.receiveEnergy(remainder, false);
                 }
             }
+
+            // When no destination accepts anything, back off so full storages aren't polled every tick.
+            if (transferred) {
+                idleTicks = 0;
+            } else {
+                idleTicks = Math.min(Math.max(idleTicks * 2, 1), MAX_SLEEP_TICKS);
+                sleepTicks = idleTicks;
+            }
         }
     }
 
+    private void wakeUp() {
+        sleepTicks = 0;
+        idleTicks = 0;
+    }
+
     @Override
     public void onMergedWith(Network mainNetwork) {
         ((EnergyNetwork) mainNetwork).energyStorage.receiveEnergy(energyStorage.getEnergyStored(), false);
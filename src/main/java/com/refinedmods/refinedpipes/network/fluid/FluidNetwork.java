@@ -1,13 +1,14 @@
 package com.refinedmods.refinedpipes.network.fluid;
 
 import com.refinedmods.refinedpipes.network.Network;
+import com.refinedmods.refinedpipes.network.NetworkManager;
 import com.refinedmods.refinedpipes.network.graph.NetworkGraphScannerResult;
 import com.refinedmods.refinedpipes.network.pipe.Destination;
 import com.refinedmods.refinedpipes.network.pipe.DestinationType;
+import com.refinedmods.refinedpipes.network.pipe.Pipe;
 import com.refinedmods.refinedpipes.network.pipe.fluid.FluidPipe;
 import com.refinedmods.refinedpipes.network.pipe.fluid.FluidPipeType;
 import net.minecraft.nbt.CompoundNBT;
-import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
@@ -17,12 +18,21 @@ import net.minecraftforge.fluids.capability.CapabilityFluidHandler;
 import net.minecraftforge.fluids.capability.IFluidHandler;
 import net.minecraftforge.fluids.capability.templates.FluidTank;
 
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 public class FluidNetwork extends Network {
+    private static final int MAX_SLEEP_TICKS = 20;
+
     private final FluidTank fluidTank = new FluidTank(FluidAttributes.BUCKET_VOLUME);
 
     private final FluidPipeType pipeType;
+    private final Set<FluidPipe> pipesToSend = new LinkedHashSet<>(); // Pipes that joined, clients still show their old network.
+    private float lastFullness = 0;
+    private int sleepTicks;
+    private int idleTicks;
 
     public FluidNetwork(BlockPos originPos, String id, FluidPipeType pipeType) {
         super(originPos, id);
@@ -34,11 +44,16 @@ public class FluidNetwork extends Network {
         return fluidTank;
     }
 
+    // The fullness is the same for every pipe in the network.
+    public float getFullness() {
+        return Math.round(((float) fluidTank.getFluidAmount() / (float) fluidTank.getCapacity()) * 10.0F) / 10.0F;
+    }
+
     @Override
     public NetworkGraphScannerResult scanGraph(World world, BlockPos pos) {
         NetworkGraphScannerResult result = super.scanGraph(world, pos);
 
-        fluidTank.setCapacity(
+        updateCapacity(
             result.getFoundPipes()
                 .stream()
                 .filter(p -> p instanceof FluidPipe)
@@ -46,30 +61,101 @@ public class FluidNetwork extends Network {
                 .sum()
         );
 
+        wakeUp();
+
+        return result;
+    }
+
+    @Override
+    public void addPipe(Pipe pipe) {
+        super.addPipe(pipe);
+
+        if (pipe instanceof FluidPipe) {
+            updateCapacity(fluidTank.getCapacity() + ((FluidPipe) pipe).getType().getCapacity());
+
+            pipesToSend.add((FluidPipe) pipe);
+        }
+
+        wakeUp();
+    }
+
+    @Override
+    public void joinPipes(Collection<Pipe> pipes) {
+        super.joinPipes(pipes);
+
+        updateCapacity(fluidTank.getCapacity() + pipes
+            .stream()
+            .filter(p -> p instanceof FluidPipe)
+            .mapToInt(p -> ((FluidPipe) p).getType().getCapacity())
+            .sum()
+        );
+
+        // Sent on the next update, when merged networks have added their fluid as well.
+        pipes.forEach(p -> {
+            if (p instanceof FluidPipe) {
+                pipesToSend.add((FluidPipe) p);
+            }
+        });
+
+        wakeUp();
+    }
+
+    @Override
+    public void removePipes(Collection<Pipe> pipes) {
+        super.removePipes(pipes);
+
+        updateCapacity(fluidTank.getCapacity() - pipes
+            .stream()
+            .filter(p -> p instanceof FluidPipe)
+            .mapToInt(p -> ((FluidPipe) p).getType().getCapacity())
+            .sum()
+        );
+
+        pipesToSend.removeAll(pipes);
+    }
+
+    @Override
+    public void refreshDestinations(Pipe pipe) {
+        super.refreshDestinations(pipe);
+
+        wakeUp();
+    }
+
+    private void updateCapacity(int capacity) {
+        fluidTank.setCapacity(capacity);
+
         if (fluidTank.getFluidAmount() > fluidTank.getCapacity()) {
             fluidTank.getFluid().setAmount(fluidTank.getCapacity());
         }
-
-        return result;
     }
 
     @Override
     public void update(World world) {
         super.update(world);
 
+        updateFullness();
+
+        if (sleepTicks > 0) {
+            sleepTicks--;
+            return;
+        }
+
         List<Destination> destinations = graph.getDestinations(DestinationType.FLUID_HANDLER);
 
         if (fluidTank.getFluid().isEmpty() || destinations.isEmpty()) {
             return;
         }
 
+        boolean transferred = false;
+
+        NetworkManager networkManager = NetworkManager.get(world);
+
         for (Destination destination : destinations) {
-            TileEntity tile = destination.getConnectedPipe().getWorld().getTileEntity(destination.getReceiver());
-            if (tile == null) {
+            if (!networkManager.isChunkLoaded(destination.getReceiver())) {
                 continue;
             }
 
-            IFluidHandler handler = tile.getCapability(CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY, destination.getIncomingDirection().getOpposite()).orElse(null);
+            IFluidHandler handler = destination.getHandler(CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY).orElse(null);
             if (handler == null) {
                 continue;
             }
@@ -85,6 +171,9 @@ public class FluidNetwork extends Network {
             }
 
             int accepted = handler.fill(toOffer, IFluidHandler.FluidAction.EXECUTE);
+            if (accepted > 0) {
+                transferred = true;
+            }
 
             int remainder = toOffer.getAmount() - accepted;
             if (remainder > 0) {
@@ -94,6 +183,38 @@ public class FluidNetwork extends Network {
                 fluidTank.fill(remainderStack, IFluidHandler.FluidAction.EXECUTE);
             }
         }
+
+        // When no destination accepts anything, back off so full tanks aren't polled every tick.
+        if (transferred) {
+            idleTicks = 0;
+        } else {
+            idleTicks = Math.min(Math.max(idleTicks * 2, 1), MAX_SLEEP_TICKS);
+            sleepTicks = idleTicks;
+        }
+    }
+
+    private void updateFullness() {
+        float fullness = getFullness();
+
+        if (Math.abs(lastFullness - fullness) >= 0.1) {
+            lastFullness = fullness;
+
+            for (Pipe pipe : graph.getPipes()) {
+                if (pipe instanceof FluidPipe) {
+                    ((FluidPipe) pipe).sendFluidPipeUpdate();
+                }
+            }
+        } else {
+            // Pipes that left again (into a merged network) are updated by their new network.
+            pipesToSend.stream().filter(p -> p.getNetwork() == this).forEach(FluidPipe::sendFluidPipeUpdate);
+        }
+
+        pipesToSend.clear();
+    }
+
+    private void wakeUp() {
+        sleepTicks = 0;
+        idleTicks = 0;
     }
 
     @Override
@@ -1,18 +1,25 @@
 package com.refinedmods.refinedpipes.network.graph;
 
 import com.refinedmods.refinedpipes.network.Network;
+import com.refinedmods.refinedpipes.network.NetworkManager;
 import com.refinedmods.refinedpipes.network.pipe.Destination;
 import com.refinedmods.refinedpipes.network.pipe.DestinationType;
 import com.refinedmods.refinedpipes.network.pipe.Pipe;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.util.Direction;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 
+import javax.annotation.Nullable;
 import java.util.*;
+import java.util.function.Predicate;
 
 public class NetworkGraph {
     private final Network network;
 
     private Set<Pipe> pipes = new HashSet<>();
+    private final Long2ObjectMap<Pipe> pipesByPos = new Long2ObjectOpenHashMap<>();
     private Map<DestinationType, List<Destination>> destinations = new HashMap<>();
 
     public NetworkGraph(Network network) {
@@ -26,22 +33,133 @@ public class NetworkGraph {
 
         this.pipes = result.getFoundPipes();
 
+        result.getRemovedPipes().forEach(p -> pipesByPos.remove(p.getPos().toLong()));
+        result.getNewPipes().forEach(p -> pipesByPos.put(p.getPos().toLong(), p));
+
         result.getNewPipes().forEach(p -> p.joinNetwork(network));
         result.getRemovedPipes().forEach(Pipe::leaveNetwork);
 
-        destinations.clear();
+        NetworkManager networkManager = NetworkManager.get(originWorld);
+
+        Map<DestinationType, List<Destination>> oldDestinations = destinations;
+        destinations = new HashMap<>();
 
         for (Destination destination : result.getDestinations()) {
             destinations.computeIfAbsent(destination.getType(), type -> new ArrayList<>()).add(destination);
+            networkManager.addDestination(destination);
         }
 
+        destinations.values().forEach(d -> d.sort(Destination.ORDER));
+
+        // Only after the new destinations are registered, so that the capability caches of their receivers are kept.
+        oldDestinations.values().forEach(d -> d.forEach(networkManager::removeDestination));
+
         return result;
     }
 
+    // Only valid when the pipe doesn't connect separate networks, otherwise a full scan is required.
+    public void addPipe(Pipe pipe) {
+        pipes.add(pipe);
+        pipesByPos.put(pipe.getPos().toLong(), pipe);
+
+        pipe.joinNetwork(network);
+
+        unregisterDestinations(removeDestinations(d -> d.getReceiver().equals(pipe.getPos())));
+        addDestinations(pipe);
+    }
+
+    // Lets the pipes join without looking for destinations, that is left to the next scan.
+    public void joinPipes(Collection<Pipe> newPipes) {
+        for (Pipe pipe : newPipes) {
+            pipes.add(pipe);
+            pipesByPos.put(pipe.getPos().toLong(), pipe);
+
+            pipe.joinNetwork(network);
+        }
+    }
+
+    // The remaining pipes have to stay connected to each other.
+    public void removePipes(Collection<Pipe> removedPipes) {
+        Set<BlockPos> removedPositions = new HashSet<>();
+
+        for (Pipe pipe : removedPipes) {
+            pipes.remove(pipe);
+            pipesByPos.remove(pipe.getPos().toLong());
+
+            pipe.leaveNetwork();
+
+            removedPositions.add(pipe.getPos());
+        }
+
+        unregisterDestinations(removeDestinations(d -> removedPositions.contains(d.getConnectedPipe().getPos())));
+    }
+
+    public void refreshDestinations(Pipe pipe) {
+        List<Destination> removed = removeDestinations(d -> d.getConnectedPipe().getPos().equals(pipe.getPos()));
+        addDestinations(pipe);
+
+        // Only after the new destinations are registered, so that the capability caches of their receivers are kept.
+        unregisterDestinations(removed);
+    }
+
+    private void addDestinations(Pipe pipe) {
+        NetworkManager networkManager = NetworkManager.get(pipe.getWorld());
+
+        List<Destination> found = new ArrayList<>();
+
+        long packedPos = pipe.getPos().toLong();
+
+        for (Direction dir : Direction.values()) {
+            long pos = BlockPos.offset(packedPos, dir);
+
+            // Just like the scanner, never check for destinations on pipe positions.
+            if (networkManager.getPipe(pos) == null) {
+                NetworkGraphScanner.scanDestinations(pipe.getWorld(), BlockPos.fromLong(pos), dir, pipe, found);
+            }
+        }
+
+        found.forEach(destination -> addDestination(networkManager, destination));
+    }
+
+    // Destinations are kept sorted, so that round robin extraction keeps its place across rescans.
+    private void addDestination(NetworkManager networkManager, Destination destination) {
+        List<Destination> destinationsOfType = destinations.computeIfAbsent(destination.getType(), type -> new ArrayList<>());
+
+        int index = Collections.binarySearch(destinationsOfType, destination, Destination.ORDER);
+
+        destinationsOfType.add(index < 0 ? -index - 1 : index, destination);
+
+        networkManager.addDestination(destination);
+    }
+
+    private List<Destination> removeDestinations(Predicate<Destination> predicate) {
+        List<Destination> removed = new ArrayList<>();
+
+        destinations.values().forEach(d -> d.removeIf(destination -> {
+            if (predicate.test(destination)) {
+                removed.add(destination);
+                return true;
+            }
+
+            return false;
+        }));
+
+        return removed;
+    }
+
+    private void unregisterDestinations(List<Destination> removed) {
+        removed.forEach(destination -> NetworkManager.get(destination.getConnectedPipe().getWorld()).removeDestination(destination));
+    }
+
     public Set<Pipe> getPipes() {
         return pipes;
     }
 
+    @Nullable
+    public Pipe getPipe(BlockPos pos) {
+        return pipesByPos.get(pos.toLong());
+    }
+
     public List<Destination> getDestinations(DestinationType type) {
         return destinations.getOrDefault(type, Collections.emptyList());
     }
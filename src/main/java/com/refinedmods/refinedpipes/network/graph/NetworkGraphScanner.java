@@ -24,7 +24,6 @@ public class NetworkGraphScanner {
     private final Set<Pipe> currentPipes;
     private final ResourceLocation requiredNetworkType;
 
-    private final List<NetworkGraphScannerRequest> allRequests = new ArrayList<>();
     private final Queue<NetworkGraphScannerRequest> requests = new ArrayDeque<>();
 
     public NetworkGraphScanner(Set<Pipe> currentPipes, ResourceLocation requiredNetworkType) {
@@ -34,24 +33,25 @@ public class NetworkGraphScanner {
     }
 
     public NetworkGraphScannerResult scanAt(World world, BlockPos pos) {
-        addRequest(new NetworkGraphScannerRequest(world, pos, null, null));
+        NetworkManager networkManager = NetworkManager.get(world);
+
+        addRequest(new NetworkGraphScannerRequest(world, pos.toLong(), null, null));
 
         NetworkGraphScannerRequest request;
         while ((request = requests.poll()) != null) {
-            singleScanAt(request);
+            singleScanAt(networkManager, request);
         }
 
         return new NetworkGraphScannerResult(
             foundPipes,
             newPipes,
             removedPipes,
-            destinations,
-            allRequests
+            destinations
         );
     }
 
-    private void singleScanAt(NetworkGraphScannerRequest request) {
-        Pipe pipe = NetworkManager.get(request.getWorld()).getPipe(request.getPos());
+    private void singleScanAt(NetworkManager networkManager, NetworkGraphScannerRequest request) {
+        Pipe pipe = networkManager.getPipe(request.getPackedPos());
 
         if (pipe != null) {
             if (!requiredNetworkType.equals(pipe.getNetworkType())) {
@@ -65,12 +65,10 @@ public class NetworkGraphScanner {
 
                 removedPipes.remove(pipe);
 
-                request.setSuccessful(true);
-
                 for (Direction dir : Direction.values()) {
                     addRequest(new NetworkGraphScannerRequest(
                         request.getWorld(),
-                        request.getPos().offset(dir),
+                        BlockPos.offset(request.getPackedPos(), dir),
                         dir,
                         request
                     ));
@@ -81,32 +79,37 @@ public class NetworkGraphScanner {
             // Otherwise we have this loop: pipe gets placed -> network gets scanned -> TEs get checked -> it might check the TE we just placed
             // -> the newly created TE can be created in immediate mode -> TE#validate is called again -> TE#remove is called again!
 
-            Pipe connectedPipe = NetworkManager.get(request.getWorld()).getPipe(request.getParent().getPos());
+            Pipe connectedPipe = networkManager.getPipe(request.getParent().getPackedPos());
 
-            // If this destination is connected to a pipe with an attachment, then this is not a valid destination.
-            if (!connectedPipe.getAttachmentManager().hasAttachment(request.getDirection())) {
-                TileEntity tile = request.getWorld().getTileEntity(request.getPos());
+            scanDestinations(request.getWorld(), request.getPos(), request.getDirection(), connectedPipe, destinations);
+        }
+    }
 
-                if (tile != null) {
-                    tile.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, request.getDirection().getOpposite())
-                        .ifPresent(itemHandler -> destinations.add(new Destination(DestinationType.ITEM_HANDLER, request.getPos(), request.getDirection(), connectedPipe)));
+    static void scanDestinations(World world, BlockPos pos, Direction direction, Pipe connectedPipe, Collection<Destination> destinations) {
+        // If this destination is connected to a pipe with an attachment, then this is not a valid destination.
+        if (connectedPipe.getAttachmentManager().hasAttachment(direction)) {
+            return;
+        }
 
-                    tile.getCapability(CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY, request.getDirection().getOpposite())
-                        .ifPresent(fluidHandler -> destinations.add(new Destination(DestinationType.FLUID_HANDLER, request.getPos(), request.getDirection(), connectedPipe)));
+        TileEntity tile = world.getTileEntity(pos);
 
-                    tile.getCapability(CapabilityEnergy.ENERGY, request.getDirection().getOpposite())
-                        .ifPresent(energyStorage -> {
-                            if (!(energyStorage instanceof EnergyPipeEnergyStorage)) {
-                                destinations.add(new Destination(DestinationType.ENERGY_STORAGE, request.getPos(), request.getDirection(), connectedPipe));
-                            }
-                        });
-                }
-            }
+        if (tile != null) {
+            tile.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, direction.getOpposite())
+                .ifPresent(itemHandler -> destinations.add(new Destination(DestinationType.ITEM_HANDLER, pos, direction, connectedPipe)));
+
+            tile.getCapability(CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY, direction.getOpposite())
+                .ifPresent(fluidHandler -> destinations.add(new Destination(DestinationType.FLUID_HANDLER, pos, direction, connectedPipe)));
+
+            tile.getCapability(CapabilityEnergy.ENERGY, direction.getOpposite())
+                .ifPresent(energyStorage -> {
+                    if (!(energyStorage instanceof EnergyPipeEnergyStorage)) {
+                        destinations.add(new Destination(DestinationType.ENERGY_STORAGE, pos, direction, connectedPipe));
+                    }
+                });
         }
     }
 
     private void addRequest(NetworkGraphScannerRequest request) {
         requests.add(request);
-        allRequests.add(request);
     }
 }
@@ -8,14 +8,13 @@ import javax.annotation.Nullable;
 
 public class NetworkGraphScannerRequest {
     private final World world;
-    private final BlockPos pos;
+    private final long pos;
     @Nullable
     private final Direction direction;
     @Nullable
     private final NetworkGraphScannerRequest parent;
-    private boolean successful;
 
-    public NetworkGraphScannerRequest(World world, BlockPos pos, @Nullable Direction direction, @Nullable NetworkGraphScannerRequest parent) {
+    public NetworkGraphScannerRequest(World world, long pos, @Nullable Direction direction, @Nullable NetworkGraphScannerRequest parent) {
         this.world = world;
         this.pos = pos;
         this.direction = direction;
@@ -27,6 +26,10 @@ public class NetworkGraphScannerRequest {
     }
 
     public BlockPos getPos() {
+        return BlockPos.fromLong(pos);
+    }
+
+    public long getPackedPos() {
         return pos;
     }
 
@@ -39,12 +42,4 @@ public class NetworkGraphScannerRequest {
     public NetworkGraphScannerRequest getParent() {
         return parent;
     }
-
-    public void setSuccessful(boolean successful) {
-        this.successful = successful;
-    }
-
-    public boolean isSuccessful() {
-        return successful;
-    }
 }
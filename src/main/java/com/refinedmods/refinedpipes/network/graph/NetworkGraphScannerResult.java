@@ -3,7 +3,6 @@ package com.refinedmods.refinedpipes.network.graph;
 import com.refinedmods.refinedpipes.network.pipe.Destination;
 import com.refinedmods.refinedpipes.network.pipe.Pipe;
 
-import java.util.List;
 import java.util.Set;
 
 public class NetworkGraphScannerResult {
@@ -11,14 +10,12 @@ public class NetworkGraphScannerResult {
     private final Set<Pipe> newPipes;
     private final Set<Pipe> removedPipes;
     private final Set<Destination> destinations;
-    private final List<NetworkGraphScannerRequest> requests;
 
-    public NetworkGraphScannerResult(Set<Pipe> foundPipes, Set<Pipe> newPipes, Set<Pipe> removedPipes, Set<Destination> destinations, List<NetworkGraphScannerRequest> requests) {
+    public NetworkGraphScannerResult(Set<Pipe> foundPipes, Set<Pipe> newPipes, Set<Pipe> removedPipes, Set<Destination> destinations) {
         this.foundPipes = foundPipes;
         this.newPipes = newPipes;
         this.removedPipes = removedPipes;
         this.destinations = destinations;
-        this.requests = requests;
     }
 
     public Set<Pipe> getFoundPipes() {
@@ -36,8 +33,4 @@ public class NetworkGraphScannerResult {
     public Set<Destination> getDestinations() {
         return destinations;
     }
-
-    public List<NetworkGraphScannerRequest> getRequests() {
-        return requests;
-    }
 }
@@ -0,0 +1,149 @@
+package com.refinedmods.refinedpipes.network.graph;
+
+import com.refinedmods.refinedpipes.network.NetworkManager;
+import com.refinedmods.refinedpipes.network.pipe.Pipe;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import net.minecraft.util.Direction;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.*;
+
+// Finds the parts of a network that got disconnected by removing a pipe.
+// A search is started from every pipe that was adjacent to the removed pipe, and they take turns visiting one pipe each.
+// Searches that meet are merged into a group (union-find). Once only one group is still searching, that group is the
+// part of the network that is kept and we can stop, so only the parts that split off are searched completely.
+public class NetworkGraphSplitDetector {
+    private final NetworkManager networkManager;
+    private final ResourceLocation requiredNetworkType;
+
+    private final Long2IntMap owners = new Long2IntOpenHashMap(); // Keyed by BlockPos#toLong.
+    private final List<Deque<Pipe>> queues = new ArrayList<>();
+    private final List<List<Pipe>> foundPipes = new ArrayList<>();
+    private int[] groups;
+    private boolean[] finished;
+
+    public NetworkGraphSplitDetector(NetworkManager networkManager, ResourceLocation requiredNetworkType) {
+        this.networkManager = networkManager;
+        this.requiredNetworkType = requiredNetworkType;
+        this.owners.defaultReturnValue(-1);
+    }
+
+    public List<Set<Pipe>> findDetachedPipes(Collection<Pipe> adjacentPipes) {
+        int searches = adjacentPipes.size();
+
+        groups = new int[searches];
+        finished = new boolean[searches];
+
+        for (Pipe pipe : adjacentPipes) {
+            int search = queues.size();
+
+            groups[search] = search;
+            owners.put(pipe.getPos().toLong(), search);
+
+            queues.add(new ArrayDeque<>(Collections.singleton(pipe)));
+            foundPipes.add(new ArrayList<>(Collections.singleton(pipe)));
+        }
+
+        List<Set<Pipe>> detachedPipes = new ArrayList<>();
+        int running = searches;
+
+        while (running > 1) {
+            for (int search = 0; search < searches && running > 1; ++search) {
+                if (finished[findGroup(search)]) {
+                    continue;
+                }
+
+                Pipe pipe = queues.get(search).poll();
+
+                if (pipe != null) {
+                    running -= visitAdjacentPipes(search, pipe);
+                } else if (isExhausted(findGroup(search))) {
+                    int group = findGroup(search);
+
+                    finished[group] = true;
+                    detachedPipes.add(getPipesOfGroup(group));
+
+                    running--;
+                }
+            }
+        }
+
+        return detachedPipes;
+    }
+
+    // Returns the amount of groups that were merged.
+    private int visitAdjacentPipes(int search, Pipe pipe) {
+        int merged = 0;
+
+        long packedPos = pipe.getPos().toLong();
+
+        for (Direction dir : Direction.values()) {
+            long adjacentPos = BlockPos.offset(packedPos, dir);
+
+            Pipe adjacent = networkManager.getPipe(adjacentPos);
+
+            if (adjacent == null || !requiredNetworkType.equals(adjacent.getNetworkType())) {
+                continue;
+            }
+
+            int owner = owners.get(adjacentPos);
+
+            if (owner == -1) {
+                owners.put(adjacentPos, search);
+
+                queues.get(search).add(adjacent);
+                foundPipes.get(search).add(adjacent);
+            } else if (mergeGroups(search, owner)) {
+                merged++;
+            }
+        }
+
+        return merged;
+    }
+
+    private boolean isExhausted(int group) {
+        for (int search = 0; search < queues.size(); ++search) {
+            if (findGroup(search) == group && !queues.get(search).isEmpty()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private Set<Pipe> getPipesOfGroup(int group) {
+        Set<Pipe> pipes = new HashSet<>();
+
+        for (int search = 0; search < foundPipes.size(); ++search) {
+            if (findGroup(search) == group) {
+                pipes.addAll(foundPipes.get(search));
+            }
+        }
+
+        return pipes;
+    }
+
+    private int findGroup(int search) {
+        while (groups[search] != search) {
+            groups[search] = groups[groups[search]];
+            search = groups[search];
+        }
+
+        return search;
+    }
+
+    private boolean mergeGroups(int a, int b) {
+        int groupA = findGroup(a);
+        int groupB = findGroup(b);
+
+        if (groupA == groupB) {
+            return false;
+        }
+
+        groups[groupB] = groupA;
+
+        return true;
+    }
+}
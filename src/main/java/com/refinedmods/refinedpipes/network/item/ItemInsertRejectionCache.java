@@ -0,0 +1,140 @@
+package com.refinedmods.refinedpipes.network.item;
+
+import com.refinedmods.refinedpipes.network.pipe.Destination;
+import com.refinedmods.refinedpipes.util.ComparatorUtil;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.util.Direction;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+// Remembers which destinations recently rejected an item in an insert simulation, so that extractors don't walk
+// the slots of full inventories over and over again.
+// Only rejections are cached: transports arriving at a destination can only fill it up further.
+// Other blocks can take items out of a destination without us knowing. That usually changes the comparator output of
+// the destination, which drops its rejections. Small changes don't always move the comparator output and not every
+// destination has one, so rejections expire after a while as well.
+public class ItemInsertRejectionCache {
+    private static final int EXPIRY_TICKS = 100;
+    private static final int EXPIRY_TICKS_WITHOUT_COMPARATOR = 20;
+
+    private final Long2ObjectMap<Receiver> receivers = new Long2ObjectOpenHashMap<>();
+
+    public boolean isRejected(World world, Destination destination, ItemStack stack) {
+        Receiver receiver = receivers.get(destination.getReceiver().toLong());
+        if (receiver == null) {
+            return false;
+        }
+
+        Rejection rejection = receiver.rejections.get(new Key(destination.getIncomingDirection(), stack.getItem(), stack.getTag()));
+
+        long tick = world.getGameTime();
+
+        // A destination that rejected a stack will also reject a bigger one.
+        if (rejection == null || rejection.expiryTick <= tick || stack.getCount() < rejection.count) {
+            return false;
+        }
+
+        // The comparator output is read at most once per destination per tick, no matter how many extractors ask.
+        if (receiver.checkedTick != tick) {
+            receiver.checkedTick = tick;
+
+            if (ComparatorUtil.getLevel(world, destination.getReceiver()) != receiver.comparatorLevel) {
+                receivers.remove(destination.getReceiver().toLong());
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public void reject(World world, Destination destination, ItemStack stack) {
+        long tick = world.getGameTime();
+
+        Receiver receiver = receivers.get(destination.getReceiver().toLong());
+        if (receiver == null) {
+            receiver = new Receiver(ComparatorUtil.getLevel(world, destination.getReceiver()), tick);
+            receivers.put(destination.getReceiver().toLong(), receiver);
+        }
+
+        CompoundNBT tag = stack.getTag();
+        Key key = new Key(destination.getIncomingDirection(), stack.getItem(), tag == null ? null : tag.copy());
+        Rejection existing = receiver.rejections.get(key);
+
+        if (existing == null || existing.expiryTick <= tick || stack.getCount() < existing.count) {
+            int expiryTicks = receiver.comparatorLevel == -1 ? EXPIRY_TICKS_WITHOUT_COMPARATOR : EXPIRY_TICKS;
+
+            receiver.rejections.put(key, new Rejection(stack.getCount(), tick + expiryTicks));
+        }
+    }
+
+    // Called when items are taken out of the inventory at the given position.
+    public void invalidate(BlockPos receiver) {
+        receivers.remove(receiver.toLong());
+    }
+
+    public void removeExpired(long tick) {
+        receivers.values().removeIf(receiver -> {
+            receiver.rejections.values().removeIf(rejection -> rejection.expiryTick <= tick);
+
+            return receiver.rejections.isEmpty();
+        });
+    }
+
+    private static class Receiver {
+        private final Map<Key, Rejection> rejections = new HashMap<>();
+        private final int comparatorLevel; // At the time of the first rejection.
+        private long checkedTick;
+
+        public Receiver(int comparatorLevel, long checkedTick) {
+            this.comparatorLevel = comparatorLevel;
+            this.checkedTick = checkedTick;
+        }
+    }
+
+    private static class Key {
+        private final Direction incomingDirection;
+        private final Item item;
+        @Nullable
+        private final CompoundNBT tag;
+
+        public Key(Direction incomingDirection, Item item, @Nullable CompoundNBT tag) {
+            this.incomingDirection = incomingDirection;
+            this.item = item;
+            this.tag = tag;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return incomingDirection == key.incomingDirection &&
+                item == key.item &&
+                Objects.equals(tag, key.tag);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(incomingDirection, item, tag);
+        }
+    }
+
+    private static class Rejection {
+        private final int count;
+        private final long expiryTick;
+
+        public Rejection(int count, long expiryTick) {
+            this.count = count;
+            this.expiryTick = expiryTick;
+        }
+    }
+}
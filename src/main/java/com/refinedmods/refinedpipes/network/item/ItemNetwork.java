@@ -2,29 +2,42 @@ package com.refinedmods.refinedpipes.network.item;
 
 import com.refinedmods.refinedpipes.RefinedPipes;
 import com.refinedmods.refinedpipes.network.Network;
+import com.refinedmods.refinedpipes.network.NetworkManager;
 import com.refinedmods.refinedpipes.network.graph.NetworkGraphScannerResult;
 import com.refinedmods.refinedpipes.network.item.routing.DestinationPathCache;
+import com.refinedmods.refinedpipes.network.item.routing.DestinationPathCacheExecutor;
 import com.refinedmods.refinedpipes.network.item.routing.DestinationPathCacheFactory;
-import com.refinedmods.refinedpipes.network.item.routing.EdgeFactory;
-import com.refinedmods.refinedpipes.network.pipe.Destination;
 import com.refinedmods.refinedpipes.network.pipe.DestinationType;
 import com.refinedmods.refinedpipes.network.pipe.Pipe;
-import com.refinedmods.refinedpipes.routing.Edge;
-import com.refinedmods.refinedpipes.routing.Graph;
+import com.refinedmods.refinedpipes.network.pipe.item.ItemPipe;
 import com.refinedmods.refinedpipes.routing.Node;
-import com.refinedmods.refinedpipes.routing.NodeIndex;
+import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 public class ItemNetwork extends Network {
     public static final ResourceLocation TYPE = new ResourceLocation(RefinedPipes.ID, "item");
+    private static final int INSERT_REJECTION_CLEANUP_INTERVAL = 200;
 
+    private final ItemTransportScheduler transportScheduler = new ItemTransportScheduler(this);
+    private final Set<ItemPipe> pipesWithChangedTransports = new LinkedHashSet<>();
+    private final ItemInsertRejectionCache insertRejectionCache = new ItemInsertRejectionCache();
+    @Nullable
     private DestinationPathCache destinationPathCache;
+    @Nullable
+    private Future<DestinationPathCache> pendingDestinationPathCache;
+    private long frozenTick = -1; // Tick at which the network stopped updating, or -1 if it isn't frozen.
 
     public ItemNetwork(BlockPos originPos, String id) {
         super(originPos, id);
@@ -34,11 +47,101 @@ public class ItemNetwork extends Network {
     public NetworkGraphScannerResult scanGraph(World world, BlockPos pos) {
         NetworkGraphScannerResult result = super.scanGraph(world, pos);
 
-        updateRouting(result, graph.getDestinations(DestinationType.ITEM_HANDLER));
+        invalidateRouting();
 
         return result;
     }
 
+    @Override
+    public void addPipe(Pipe pipe) {
+        super.addPipe(pipe);
+
+        if (destinationPathCache != null && destinationPathCache.addLeaf(pipe.getPos())) {
+            destinationPathCache.setDestinations(getDestinations(DestinationType.ITEM_HANDLER));
+        } else {
+            invalidateRouting();
+        }
+    }
+
+    @Override
+    public void joinPipes(Collection<Pipe> pipes) {
+        super.joinPipes(pipes);
+
+        invalidateRouting();
+    }
+
+    @Override
+    public void removePipes(Collection<Pipe> pipes) {
+        super.removePipes(pipes);
+
+        if (destinationPathCache != null && pipes.size() == 1 && destinationPathCache.removeLeaf(pipes.iterator().next().getPos())) {
+            destinationPathCache.setDestinations(getDestinations(DestinationType.ITEM_HANDLER));
+        } else {
+            invalidateRouting();
+        }
+    }
+
+    @Override
+    public void refreshDestinations(Pipe pipe) {
+        super.refreshDestinations(pipe);
+
+        if (destinationPathCache != null) {
+            destinationPathCache.setDestinations(getDestinations(DestinationType.ITEM_HANDLER));
+        } else {
+            invalidateRouting();
+        }
+    }
+
+    @Override
+    public void update(World world) {
+        super.update(world);
+
+        if (frozenTick != -1) {
+            transportScheduler.resume(world.getGameTime() - frozenTick, world.getGameTime());
+            frozenTick = -1;
+
+            NetworkManager.get(world).markDirty();
+        }
+
+        if (transportScheduler.update(world.getGameTime()) || !pipesWithChangedTransports.isEmpty()) {
+            NetworkManager.get(world).markDirty();
+        }
+
+        // Clients get at most one update per pipe per tick.
+        pipesWithChangedTransports.forEach(ItemPipe::sendTransportUpdate);
+        pipesWithChangedTransports.clear();
+
+        if (world.getGameTime() % INSERT_REJECTION_CLEANUP_INTERVAL == 0) {
+            insertRejectionCache.removeExpired(world.getGameTime());
+        }
+    }
+
+    @Override
+    public void freeze(World world) {
+        if (frozenTick == -1) {
+            frozenTick = world.getGameTime();
+
+            // The network can stay frozen across a restart, so the tick is saved as well.
+            NetworkManager.get(world).markDirty();
+        }
+    }
+
+    public void setFrozenTick(long frozenTick) {
+        this.frozenTick = frozenTick;
+    }
+
+    public ItemTransportScheduler getTransportScheduler() {
+        return transportScheduler;
+    }
+
+    public ItemInsertRejectionCache getInsertRejectionCache() {
+        return insertRejectionCache;
+    }
+
+    public void markTransportsChanged(ItemPipe pipe) {
+        pipesWithChangedTransports.add(pipe);
+    }
+
     @Override
     public void onMergedWith(Network mainNetwork) {
 
@@ -49,26 +152,58 @@ public class ItemNetwork extends Network {
         return TYPE;
     }
 
-    private void updateRouting(NetworkGraphScannerResult result, List<Destination> destinations) {
-        List<Node<BlockPos>> nodes = buildNodes(result.getFoundPipes());
+    @Override
+    public CompoundNBT writeToNbt(CompoundNBT tag) {
+        tag.putLong("ft", frozenTick);
 
-        NodeIndex<BlockPos> nodeIndex = NodeIndex.of(nodes);
+        return super.writeToNbt(tag);
+    }
 
-        EdgeFactory edgeFactory = new EdgeFactory(nodeIndex, result.getRequests());
-        List<Edge<BlockPos>> edges = edgeFactory.create();
+    private void invalidateRouting() {
+        this.destinationPathCache = null;
 
-        Graph<BlockPos> graph = new Graph<>(nodes, edges);
+        // A build that is still running is based on the old pipes and destinations.
+        if (pendingDestinationPathCache != null) {
+            pendingDestinationPathCache.cancel(false);
+            pendingDestinationPathCache = null;
+        }
+    }
 
-        DestinationPathCacheFactory destinationPathCacheFactory = new DestinationPathCacheFactory(graph, nodeIndex, destinations);
+    private Future<DestinationPathCache> buildRouting() {
+        List<Node<BlockPos>> nodes = graph.getPipes().stream().map(p -> new Node<>(p.getPos())).collect(Collectors.toList());
 
-        this.destinationPathCache = destinationPathCacheFactory.create();
-    }
+        List<BlockPos> sources = graph.getPipes()
+            .stream()
+            .filter(p -> !p.getAttachmentManager().getAttachments().isEmpty())
+            .map(Pipe::getPos)
+            .collect(Collectors.toList());
 
-    private List<Node<BlockPos>> buildNodes(Set<Pipe> pipes) {
-        return pipes.stream().map(p -> new Node<>(p.getPos())).collect(Collectors.toList());
+        return DestinationPathCacheExecutor.INSTANCE.submit(new DestinationPathCacheFactory(
+            nodes,
+            new ArrayList<>(getDestinations(DestinationType.ITEM_HANDLER)),
+            sources
+        ));
     }
 
+    // The cache is built in the background after the network changed, this returns null until it is done.
+    @Nullable
     public DestinationPathCache getDestinationPathCache() {
+        if (destinationPathCache == null) {
+            if (pendingDestinationPathCache == null) {
+                pendingDestinationPathCache = buildRouting();
+            }
+
+            if (pendingDestinationPathCache.isDone()) {
+                try {
+                    destinationPathCache = pendingDestinationPathCache.get();
+                } catch (InterruptedException | ExecutionException e) {
+                    throw new RuntimeException("Could not build the destination path cache of network " + getId(), e);
+                } finally {
+                    pendingDestinationPathCache = null;
+                }
+            }
+        }
+
         return destinationPathCache;
     }
 }
@@ -22,6 +22,10 @@ public class ItemNetworkFactory implements NetworkFactory {
     public Network create(CompoundNBT tag) {
         ItemNetwork network = new ItemNetwork(BlockPos.fromLong(tag.getLong("origin")), tag.getString("id"));
 
+        if (tag.contains("ft")) {
+            network.setFrozenTick(tag.getLong("ft"));
+        }
+
         LOGGER.debug("Deserialized item network {}", network.getId());
 
         return network;
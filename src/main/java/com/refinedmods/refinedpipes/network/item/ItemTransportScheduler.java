@@ -0,0 +1,130 @@
+package com.refinedmods.refinedpipes.network.item;
+
+import com.refinedmods.refinedpipes.network.NetworkManager;
+import com.refinedmods.refinedpipes.network.pipe.item.ItemPipe;
+import com.refinedmods.refinedpipes.network.pipe.transport.ItemTransport;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Timing wheel with all the in-flight transports of an item network, keyed by the tick of their next event.
+// A transport is only looked at when it reaches the end of its current pipe, so items in the middle of a pipe
+// don't cost anything.
+public class ItemTransportScheduler {
+    private static final int WHEEL_SIZE = 256;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int UNLOADED_RETRY_TICKS = 20;
+
+    private final ItemNetwork network;
+    @SuppressWarnings("unchecked")
+    private final List<ItemTransport>[] buckets = new List[WHEEL_SIZE];
+    private List<ItemTransport> spareBucket = new ArrayList<>();
+    private long lastTick = -1;
+
+    public ItemTransportScheduler(ItemNetwork network) {
+        this.network = network;
+
+        for (int i = 0; i < WHEEL_SIZE; ++i) {
+            buckets[i] = new ArrayList<>();
+        }
+    }
+
+    // The transport is woken up at its wake tick.
+    // Events further away than the size of the wheel stay in their bucket until the wheel went around enough times.
+    public void schedule(ItemTransport transport) {
+        buckets[getBucket(transport.getWakeTick())].add(transport);
+    }
+
+    // Returns whether any transport was woken up.
+    public boolean update(long tick) {
+        if (lastTick == -1 || tick - lastTick > WHEEL_SIZE) {
+            lastTick = tick - WHEEL_SIZE;
+        }
+
+        boolean woken = false;
+
+        while (lastTick < tick) {
+            woken |= wake(++lastTick);
+        }
+
+        return woken;
+    }
+
+    // Called on the first update after the network was frozen. The transports continue where they were when the network
+    // froze, instead of catching up on all the missed ticks at once.
+    public void resume(long frozenTicks, long tick) {
+        Set<ItemTransport> transports = new LinkedHashSet<>();
+
+        for (int i = 0; i < WHEEL_SIZE; ++i) {
+            for (ItemTransport transport : buckets[i]) {
+                if (isScheduledHere(transport, i)) {
+                    transports.add(transport);
+                }
+            }
+
+            buckets[i].clear();
+        }
+
+        for (ItemTransport transport : transports) {
+            transport.delay(frozenTicks);
+            schedule(transport);
+
+            // Clients have to interpolate between the new timestamps.
+            network.markTransportsChanged(transport.getCurrentPipe());
+        }
+
+        lastTick = tick - 1;
+    }
+
+    private boolean wake(long tick) {
+        int bucket = getBucket(tick);
+
+        // Swap the bucket out, waking up transports can schedule new events into it.
+        List<ItemTransport> due = buckets[bucket];
+        buckets[bucket] = spareBucket;
+
+        boolean woken = false;
+
+        for (ItemTransport transport : due) {
+            if (!isScheduledHere(transport, bucket)) {
+                continue;
+            }
+
+            if (transport.getWakeTick() > tick) {
+                buckets[bucket].add(transport);
+            } else if (!isLoaded(transport)) {
+                // Waking up looks at the world at the current and the next position, which would load those chunks.
+                transport.postpone(network, tick + UNLOADED_RETRY_TICKS);
+            } else {
+                transport.wake(network, tick);
+                woken = true;
+            }
+        }
+
+        due.clear();
+        spareBucket = due;
+
+        return woken;
+    }
+
+    // Entries are never removed from the wheel, they go stale when the transport leaves the network or gets rescheduled.
+    private boolean isScheduledHere(ItemTransport transport, int bucket) {
+        ItemPipe currentPipe = transport.getCurrentPipe();
+
+        return currentPipe != null && currentPipe.getNetwork() == network && getBucket(transport.getWakeTick()) == bucket;
+    }
+
+    private boolean isLoaded(ItemTransport transport) {
+        ItemPipe currentPipe = transport.getCurrentPipe();
+        NetworkManager networkManager = NetworkManager.get(currentPipe.getWorld());
+
+        return networkManager.isChunkLoaded(currentPipe.getPos())
+            && networkManager.isChunkLoaded(currentPipe.getPos().offset(transport.getDirection(currentPipe)));
+    }
+
+    private static int getBucket(long tick) {
+        return (int) (tick & WHEEL_MASK);
+    }
+}
@@ -1,84 +1,268 @@
 package com.refinedmods.refinedpipes.network.item.routing;
 
 import com.refinedmods.refinedpipes.network.pipe.Destination;
-import com.refinedmods.refinedpipes.routing.Path;
+import com.refinedmods.refinedpipes.network.pipe.transport.TransportPath;
+import com.refinedmods.refinedpipes.routing.*;
+import net.minecraft.util.Direction;
 import net.minecraft.util.math.BlockPos;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Predicate;
 
 public class DestinationPathCache {
-    private final Map<BlockPos, Map<Destination, Path<BlockPos>>> paths = new HashMap<>();
+    private static final int MIN_CACHED_SOURCES = 64;
 
-    public void addPath(BlockPos source, Destination destination, Path<BlockPos> path) {
-        paths.computeIfAbsent(source, s -> new HashMap<>()).put(destination, path);
+    private IndexedGraph<BlockPos> graph;
+    @Nullable
+    private ShortestPathAlgorithm<BlockPos> algorithm;
+    private List<Destination> destinations;
+    private int[] destinationNodes;
+    private final Map<BlockPos, SourcePaths> sources;
+
+    // Sources are only searched from when they ask for a path, the least recently used ones are evicted.
+    // The cache fits at least all the sources known when it's built, otherwise networks with many extractors keep
+    // evicting the paths they are about to use.
+    public DestinationPathCache(IndexedGraph<BlockPos> graph, List<Destination> destinations, int expectedSources) {
+        this.graph = graph;
+
+        int maxSources = Math.max(MIN_CACHED_SOURCES, expectedSources);
+
+        this.sources = new LinkedHashMap<BlockPos, SourcePaths>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<BlockPos, SourcePaths> eldest) {
+                return size() > maxSources;
+            }
+        };
+
+        setDestinations(destinations);
+    }
+
+    public void setDestinations(List<Destination> destinations) {
+        this.destinations = new ArrayList<>(destinations);
+        this.destinationNodes = new int[destinations.size()];
+
+        for (int i = 0; i < destinations.size(); ++i) {
+            destinationNodes[i] = graph.getIndex(destinations.get(i).getConnectedPipe().getPos());
+        }
+
+        sources.values().forEach(SourcePaths::clear);
+    }
+
+    // Returns false if the pipe isn't connected to exactly one other pipe, the cache has to be rebuilt in that case.
+    public boolean addLeaf(BlockPos pos) {
+        if (graph.getIndex(pos) != -1) {
+            return false;
+        }
+
+        int neighbour = -1;
+
+        for (Direction dir : Direction.values()) {
+            int node = graph.getIndex(pos.offset(dir));
+
+            if (node != -1) {
+                if (neighbour != -1) {
+                    return false;
+                }
+
+                neighbour = node;
+            }
+        }
+
+        if (neighbour == -1) {
+            return false;
+        }
+
+        graph = graph.withLeaf(new Node<>(pos), neighbour, 1);
+        algorithm = null;
+
+        int leaf = graph.getIndex(pos);
+        for (SourcePaths sourcePaths : sources.values()) {
+            sourcePaths.tree = sourcePaths.tree.withLeaf(graph, leaf, neighbour, 1);
+            sourcePaths.destinationsByDistance = null;
+        }
+
+        return true;
+    }
+
+    // Returns false if the pipe isn't connected to exactly one other pipe, the cache has to be rebuilt in that case.
+    public boolean removeLeaf(BlockPos pos) {
+        int leaf = graph.getIndex(pos);
+        if (leaf == -1 || graph.getDegree(leaf) != 1) {
+            return false;
+        }
+
+        // Removed nodes stay behind in the graph, rebuild when they start to take up too much space.
+        if (graph.getRemovedNodes() + 1 > graph.size() / 2) {
+            return false;
+        }
+
+        graph = graph.withoutNode(leaf);
+        algorithm = null;
+
+        sources.remove(pos);
+
+        for (SourcePaths sourcePaths : sources.values()) {
+            sourcePaths.tree = sourcePaths.tree.withoutLeaf(graph, leaf);
+            sourcePaths.destinationsByDistance = null;
+        }
+
+        return true;
+    }
+
+    private ShortestPathAlgorithm<BlockPos> getAlgorithm() {
+        if (algorithm == null) {
+            // Pipe connections all have the same weight, in which case a plain BFS gives the same shortest paths as Dijkstra.
+            algorithm = graph.hasUniformWeights() ? new BreadthFirstSearch<>(graph) : new DijkstraAlgorithm<>(graph);
+        }
+
+        return algorithm;
+    }
+
+    public void computeSource(BlockPos source) {
+        getSourcePaths(source);
     }
 
     @Nullable
-    public Path<BlockPos> getPath(BlockPos source, Destination destination) {
-        Map<Destination, Path<BlockPos>> pathsFromSource = paths.get(source);
-        if (pathsFromSource == null) {
-            return null;
+    private SourcePaths getSourcePaths(BlockPos source) {
+        SourcePaths sourcePaths = sources.get(source);
+
+        if (sourcePaths == null) {
+            int node = graph.getIndex(source);
+            if (node == -1 || destinations.isEmpty()) {
+                return null;
+            }
+
+            sourcePaths = new SourcePaths(getAlgorithm().execute(graph.getNode(node)));
+
+            sources.put(source, sourcePaths);
         }
 
-        return pathsFromSource.get(destination);
+        return sourcePaths;
     }
 
+    // Transports on the same route all share the returned path.
     @Nullable
-    public Destination findNearestDestination(BlockPos source, Predicate<Destination> filter) {
-        Map<Destination, Path<BlockPos>> pathsFromSource = paths.get(source);
-        if (pathsFromSource == null) {
+    public TransportPath getPath(BlockPos source, Destination destination) {
+        SourcePaths sourcePaths = getSourcePaths(source);
+        if (sourcePaths == null) {
             return null;
         }
 
-        Destination foundDestination = null;
-        int shortestDistance = -1;
+        TransportPath path = sourcePaths.paths.get(destination);
 
-        for (Map.Entry<Destination, Path<BlockPos>> destinationAndPath : pathsFromSource.entrySet()) {
-            Destination destination = destinationAndPath.getKey();
-            if (!filter.test(destination)) {
-                continue;
+        if (path == null) {
+            int node = graph.getIndex(destination.getConnectedPipe().getPos());
+            if (node == -1) {
+                return null;
             }
 
-            Path<BlockPos> path = destinationAndPath.getValue();
-            int distance = path.length();
+            Path<BlockPos> treePath = sourcePaths.tree.getPath(node);
+            if (treePath == null) {
+                return null;
+            }
+
+            path = TransportPath.of(treePath);
 
-            if ((shortestDistance == -1 || distance < shortestDistance)) {
-                shortestDistance = distance;
-                foundDestination = destination;
+            sourcePaths.paths.put(destination, path);
+        }
+
+        return path;
+    }
+
+    @Nullable
+    public Destination findNearestDestination(BlockPos source, Predicate<Destination> filter) {
+        SourcePaths sourcePaths = getSourcePaths(source);
+        if (sourcePaths == null) {
+            return null;
+        }
+
+        for (int destination : sourcePaths.getDestinationsByDistance(destinationNodes)) {
+            if (filter.test(destinations.get(destination))) {
+                return destinations.get(destination);
             }
         }
 
-        return foundDestination;
+        return null;
     }
 
     @Nullable
     public Destination findFurthestDestination(BlockPos source, Predicate<Destination> filter) {
-        Map<Destination, Path<BlockPos>> pathsFromSource = paths.get(source);
-        if (pathsFromSource == null) {
+        SourcePaths sourcePaths = getSourcePaths(source);
+        if (sourcePaths == null) {
             return null;
         }
 
-        Destination foundDestination = null;
-        int furthestDistance = -1;
+        int[] sorted = sourcePaths.getDestinationsByDistance(destinationNodes);
+        ShortestPathTree<BlockPos> tree = sourcePaths.tree;
+
+        // Walk the groups of equally far destinations from the back,
+        // within a group the destination that comes first still wins.
+        int groupEnd = sorted.length;
 
-        for (Map.Entry<Destination, Path<BlockPos>> destinationAndPath : pathsFromSource.entrySet()) {
-            Destination destination = destinationAndPath.getKey();
-            if (!filter.test(destination)) {
-                continue;
+        while (groupEnd > 0) {
+            int distance = tree.getDistance(destinationNodes[sorted[groupEnd - 1]]);
+
+            int groupStart = groupEnd - 1;
+            while (groupStart > 0 && tree.getDistance(destinationNodes[sorted[groupStart - 1]]) == distance) {
+                groupStart--;
             }
 
-            Path<BlockPos> path = destinationAndPath.getValue();
-            int distance = path.length();
+            for (int i = groupStart; i < groupEnd; ++i) {
+                if (filter.test(destinations.get(sorted[i]))) {
+                    return destinations.get(sorted[i]);
+                }
+            }
+
+            groupEnd = groupStart;
+        }
+
+        return null;
+    }
+
+    private static class SourcePaths {
+        private ShortestPathTree<BlockPos> tree;
+        private final Map<Destination, TransportPath> paths = new HashMap<>();
+        @Nullable
+        private int[] destinationsByDistance;
+
+        private SourcePaths(ShortestPathTree<BlockPos> tree) {
+            this.tree = tree;
+        }
+
+        // Indices of the reachable destinations, nearest first. Equally far destinations keep their order.
+        private int[] getDestinationsByDistance(int[] destinationNodes) {
+            if (destinationsByDistance == null) {
+                long[] keys = new long[destinationNodes.length];
+                int reachable = 0;
+
+                for (int i = 0; i < destinationNodes.length; ++i) {
+                    int node = destinationNodes[i];
 
-            if ((furthestDistance == -1 || distance > furthestDistance)) {
-                furthestDistance = distance;
-                foundDestination = destination;
+                    if (node != -1 && tree.isReachable(node)) {
+                        keys[reachable++] = ((long) tree.getDistance(node) << 32) | i;
+                    }
+                }
+
+                Arrays.sort(keys, 0, reachable);
+
+                destinationsByDistance = new int[reachable];
+                for (int i = 0; i < reachable; ++i) {
+                    destinationsByDistance[i] = (int) keys[i];
+                }
             }
+
+            return destinationsByDistance;
         }
 
-        return foundDestination;
+        private void clear() {
+            paths.clear();
+            destinationsByDistance = null;
+        }
     }
 }
@@ -0,0 +1,32 @@
+package com.refinedmods.refinedpipes.network.item.routing;
+
+import java.util.concurrent.*;
+
+// Builds path caches on a background thread, so that changing a big item network doesn't stall the server thread.
+// The queue is bounded, if it's full the build runs on the calling thread instead.
+public class DestinationPathCacheExecutor {
+    public static final DestinationPathCacheExecutor INSTANCE = new DestinationPathCacheExecutor();
+
+    private static final int MAX_QUEUED_BUILDS = 64;
+
+    private final ExecutorService executor = new ThreadPoolExecutor(
+        1,
+        1,
+        0L,
+        TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(MAX_QUEUED_BUILDS),
+        runnable -> {
+            Thread thread = new Thread(runnable, "Refined Pipes routing");
+            thread.setDaemon(true);
+            return thread;
+        },
+        new ThreadPoolExecutor.CallerRunsPolicy()
+    );
+
+    private DestinationPathCacheExecutor() {
+    }
+
+    public Future<DestinationPathCache> submit(DestinationPathCacheFactory factory) {
+        return executor.submit(factory::create);
+    }
+}
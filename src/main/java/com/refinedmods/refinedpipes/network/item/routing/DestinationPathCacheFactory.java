@@ -1,65 +1,46 @@
 package com.refinedmods.refinedpipes.network.item.routing;
 
 import com.refinedmods.refinedpipes.network.pipe.Destination;
-import com.refinedmods.refinedpipes.network.pipe.Pipe;
 import com.refinedmods.refinedpipes.routing.*;
 import net.minecraft.util.math.BlockPos;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.ArrayList;
 import java.util.List;
 
+// Only works on a copy of the network's pipe positions and destinations, so it's safe to run off the server thread.
 public class DestinationPathCacheFactory {
     private static final Logger LOGGER = LogManager.getLogger(DestinationPathCacheFactory.class);
 
-    private final Graph<BlockPos> graph;
-    private final NodeIndex<BlockPos> nodeIndex;
+    private final List<Node<BlockPos>> nodes;
     private final List<Destination> destinations;
+    private final List<BlockPos> sources;
 
-    public DestinationPathCacheFactory(Graph<BlockPos> graph, NodeIndex<BlockPos> nodeIndex, List<Destination> destinations) {
-        this.graph = graph;
-        this.nodeIndex = nodeIndex;
+    public DestinationPathCacheFactory(List<Node<BlockPos>> nodes, List<Destination> destinations, List<BlockPos> sources) {
+        this.nodes = nodes;
         this.destinations = destinations;
+        this.sources = sources;
     }
 
     public DestinationPathCache create() {
-        DestinationPathCache cache = new DestinationPathCache();
+        NodeIndex<BlockPos> nodeIndex = NodeIndex.of(nodes);
 
-        for (Node<BlockPos> node : graph.getNodes()) {
-            DijkstraAlgorithm<BlockPos> dijkstra = new DijkstraAlgorithm<>(graph);
+        EdgeFactory edgeFactory = new EdgeFactory(nodeIndex, nodes);
+        List<Edge<BlockPos>> edges = edgeFactory.create();
 
-            dijkstra.execute(node);
+        IndexedGraph<BlockPos> indexedGraph = IndexedGraph.of(new Graph<>(nodes, edges));
 
-            for (Destination destination : destinations) {
-                if (destination.getConnectedPipe().getPos().equals(node.getId())) {
-                    List<Node<BlockPos>> nodes = new ArrayList<>();
-                    nodes.add(node);
-
-                    cache.addPath(node.getId(), destination, new Path<>(nodes));
-                    continue;
-                }
-
-                Pipe connectedPipe = destination.getConnectedPipe();
-                Node<BlockPos> connectedPipeNode = nodeIndex.getNode(connectedPipe.getPos());
-
-                if (connectedPipeNode == null) {
-                    LOGGER.error("Connected pipe has no node! At " + connectedPipe.getPos());
-                    continue;
-                }
-
-                List<Node<BlockPos>> path = dijkstra.getPath(connectedPipeNode);
-
-                if (path != null) {
-                    cache.addPath(node.getId(), destination, new Path<>(path));
-
-                    LOGGER.debug("Computed path from " + node.getId() + " to " + connectedPipeNode.getId() + " -> " + path.size() + " nodes");
-                } else {
-                    LOGGER.error("Could not find path from " + node.getId() + " to " + connectedPipeNode.getId());
-                }
+        for (Destination destination : destinations) {
+            if (indexedGraph.getIndex(destination.getConnectedPipe().getPos()) == -1) {
+                LOGGER.error("Connected pipe has no node! At " + destination.getConnectedPipe().getPos());
             }
         }
 
+        DestinationPathCache cache = new DestinationPathCache(indexedGraph, destinations, sources.size());
+
+        // Search from the pipes that will ask for paths now, instead of on the server thread when they first extract.
+        sources.forEach(cache::computeSource);
+
         return cache;
     }
 }
@@ -1,8 +1,9 @@
 package com.refinedmods.refinedpipes.network.item.routing;
 
-import com.refinedmods.refinedpipes.network.graph.NetworkGraphScannerRequest;
 import com.refinedmods.refinedpipes.routing.Edge;
+import com.refinedmods.refinedpipes.routing.Node;
 import com.refinedmods.refinedpipes.routing.NodeIndex;
+import net.minecraft.util.Direction;
 import net.minecraft.util.math.BlockPos;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -14,36 +15,32 @@ public class EdgeFactory {
     private static final Logger LOGGER = LogManager.getLogger(EdgeFactory.class);
 
     private final NodeIndex<BlockPos> nodeIndex;
-    private final List<NetworkGraphScannerRequest> allRequests;
+    private final List<Node<BlockPos>> nodes;
 
-    public EdgeFactory(NodeIndex<BlockPos> nodeIndex, List<NetworkGraphScannerRequest> allRequests) {
+    public EdgeFactory(NodeIndex<BlockPos> nodeIndex, List<Node<BlockPos>> nodes) {
         this.nodeIndex = nodeIndex;
-        this.allRequests = allRequests;
+        this.nodes = nodes;
     }
 
     public List<Edge<BlockPos>> create() {
         List<Edge<BlockPos>> edges = new ArrayList<>();
 
-        for (NetworkGraphScannerRequest request : allRequests) {
-            if (request.isSuccessful() && request.getParent() != null) {
-                BlockPos origin = request.getParent().getPos();
-                BlockPos destination = request.getPos();
-
-                LOGGER.debug("Connecting " + origin + " to " + destination);
-
-                edges.add(new Edge<>(
-                    "Edge",
-                    nodeIndex.getNode(origin),
-                    nodeIndex.getNode(destination),
-                    1
-                ));
-
-                edges.add(new Edge<>(
-                    "Edge",
-                    nodeIndex.getNode(destination),
-                    nodeIndex.getNode(origin),
-                    1
-                ));
+        // Every pipe is connected to all adjacent pipes of the network.
+        // The reverse edge is added when the adjacent pipe itself is visited.
+        for (Node<BlockPos> origin : nodes) {
+            for (Direction dir : Direction.values()) {
+                Node<BlockPos> destination = nodeIndex.getNode(origin.getId().offset(dir));
+
+                if (destination != null) {
+                    LOGGER.debug("Connecting " + origin.getId() + " to " + destination.getId());
+
+                    edges.add(new Edge<>(
+                        "Edge",
+                        origin,
+                        destination,
+                        1
+                    ));
+                }
             }
         }
 
@@ -2,14 +2,23 @@ package com.refinedmods.refinedpipes.network.pipe;
 
 import net.minecraft.util.Direction;
 import net.minecraft.util.math.BlockPos;
+import net.minecraftforge.common.capabilities.Capability;
+import net.minecraftforge.common.util.LazyOptional;
 
+import javax.annotation.Nullable;
+import java.util.Comparator;
 import java.util.Objects;
 
 public class Destination {
+    // Only depends on the receiver side, so the order stays the same when a network is rescanned.
+    public static final Comparator<Destination> ORDER = (a, b) -> compare(a, b.receiver.toLong(), b.incomingDirection);
+
     private final DestinationType type;
     private final BlockPos receiver;
     private final Direction incomingDirection;
     private final Pipe connectedPipe;
+    @Nullable
+    private ReceiverHandlerCache handlerCache;
 
     public Destination(DestinationType type, BlockPos receiver, Direction incomingDirection, Pipe connectedPipe) {
         this.type = type;
@@ -34,6 +43,31 @@ public class Destination {
         return type;
     }
 
+    // The capability of the receiver is cached while the destination is registered with the NetworkManager.
+    // A destination that the network dropped (after a rescan or a neighbour change) looks it up every time.
+    public <T> LazyOptional<T> getHandler(Capability<T> capability) {
+        if (handlerCache != null) {
+            return handlerCache.getHandler(connectedPipe.getWorld(), capability);
+        }
+
+        return ReceiverHandlerCache.find(connectedPipe.getWorld(), receiver, incomingDirection.getOpposite(), capability);
+    }
+
+    @Nullable
+    public ReceiverHandlerCache getHandlerCache() {
+        return handlerCache;
+    }
+
+    public void setHandlerCache(@Nullable ReceiverHandlerCache handlerCache) {
+        this.handlerCache = handlerCache;
+    }
+
+    public static int compare(Destination destination, long receiver, Direction incomingDirection) {
+        int result = Long.compare(destination.receiver.toLong(), receiver);
+
+        return result != 0 ? result : destination.incomingDirection.compareTo(incomingDirection);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
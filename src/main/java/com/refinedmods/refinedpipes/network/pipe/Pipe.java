@@ -49,8 +49,14 @@ public abstract class Pipe {
         return network;
     }
 
+    // Only pipes with attachments have to be updated every tick.
+    public boolean isTicking() {
+        return !attachmentManager.getAttachments().isEmpty();
+    }
+
     public void joinNetwork(Network network) {
         this.network = network;
+        this.network.onPipeJoined(this);
 
         logger.debug(pos + " joined network " + network.getId());
 
@@ -60,7 +66,9 @@ public abstract class Pipe {
     public void leaveNetwork() {
         logger.debug(pos + " left network " + network.getId());
 
+        Network oldNetwork = this.network;
         this.network = null;
+        oldNetwork.onPipeLeft(this);
 
         sendBlockUpdate();
     }
@@ -0,0 +1,71 @@
+package com.refinedmods.refinedpipes.network.pipe;
+
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.Direction;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraftforge.common.capabilities.Capability;
+import net.minecraftforge.common.util.LazyOptional;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// The capabilities of one side of a receiver, shared by all the destinations on that side.
+// Destinations are recreated on every rescan and neighbour change, while this is kept by the NetworkManager for as long
+// as any destination uses it. That way only one invalidation listener is added per capability instance.
+public class ReceiverHandlerCache {
+    private final BlockPos receiver;
+    private final Direction side;
+    private final Map<Capability<?>, LazyOptional<?>> handlers = new IdentityHashMap<>();
+    private int destinations;
+
+    public ReceiverHandlerCache(BlockPos receiver, Direction side) {
+        this.receiver = receiver;
+        this.side = side;
+    }
+
+    public boolean isOf(BlockPos receiver, Direction side) {
+        return this.side == side && this.receiver.equals(receiver);
+    }
+
+    public void retain() {
+        destinations++;
+    }
+
+    // Returns the amount of destinations still using this cache.
+    public int release() {
+        return --destinations;
+    }
+
+    public <T> LazyOptional<T> getHandler(World world, Capability<T> capability) {
+        LazyOptional<?> handler = handlers.get(capability);
+        if (handler != null && handler.isPresent()) {
+            return handler.cast();
+        }
+
+        LazyOptional<T> found = find(world, receiver, side, capability);
+
+        if (found.isPresent()) {
+            handlers.put(capability, found);
+
+            // A replaced handler can still be invalidated later on, that shouldn't drop the current one.
+            found.addListener(invalidated -> handlers.remove(capability, invalidated));
+        }
+
+        return found;
+    }
+
+    // Called when the chunk of the receiver unloads, its tile entity is gone.
+    public void invalidate() {
+        handlers.clear();
+    }
+
+    public static <T> LazyOptional<T> find(World world, BlockPos receiver, Direction side, Capability<T> capability) {
+        TileEntity tile = world.getTileEntity(receiver);
+        if (tile == null) {
+            return LazyOptional.empty();
+        }
+
+        return tile.getCapability(capability, side);
+    }
+}
@@ -52,15 +52,17 @@ public class ServerAttachmentManager implements AttachmentManager {
         attachments.remove(dir);
         attachmentState[dir.ordinal()] = null;
 
-        // Re-scan graph, required to rebuild destinations (chests with an attachment connected are no valid destination, refresh that)
-        pipe.getNetwork().scanGraph(pipe.getWorld(), pipe.getPos());
+        // Refresh destinations of this pipe (chests with an attachment connected are no valid destination, refresh that)
+        pipe.getNetwork().refreshDestinations(pipe);
+        pipe.getNetwork().updateTicking(pipe);
     }
 
     public void setAttachmentAndScanGraph(Direction dir, Attachment attachment) {
         setAttachment(dir, attachment);
 
-        // Re-scan graph, required to rebuild destinations (chests with an attachment connected are no valid destination, refresh that)
-        pipe.getNetwork().scanGraph(pipe.getWorld(), pipe.getPos());
+        // Refresh destinations of this pipe (chests with an attachment connected are no valid destination, refresh that)
+        pipe.getNetwork().refreshDestinations(pipe);
+        pipe.getNetwork().updateTicking(pipe);
     }
 
     private void setAttachment(Direction dir, Attachment attachment) {
@@ -6,16 +6,20 @@ import com.refinedmods.refinedpipes.network.Network;
 import com.refinedmods.refinedpipes.network.NetworkManager;
 import com.refinedmods.refinedpipes.network.fluid.FluidNetwork;
 import com.refinedmods.refinedpipes.network.item.ItemNetwork;
+import com.refinedmods.refinedpipes.network.item.routing.DestinationPathCache;
 import com.refinedmods.refinedpipes.network.pipe.Destination;
 import com.refinedmods.refinedpipes.network.pipe.Pipe;
 import com.refinedmods.refinedpipes.network.pipe.attachment.Attachment;
 import com.refinedmods.refinedpipes.network.pipe.item.ItemPipe;
 import com.refinedmods.refinedpipes.network.pipe.transport.ItemTransport;
+import com.refinedmods.refinedpipes.network.pipe.transport.TransportPath;
 import com.refinedmods.refinedpipes.network.pipe.transport.callback.ItemBounceBackTransportCallback;
 import com.refinedmods.refinedpipes.network.pipe.transport.callback.ItemInsertTransportCallback;
 import com.refinedmods.refinedpipes.network.pipe.transport.callback.ItemPipeGoneTransportCallback;
-import com.refinedmods.refinedpipes.routing.Path;
+import com.refinedmods.refinedpipes.util.ItemStackUtil;
 import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.fluid.Fluid;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.tileentity.TileEntity;
@@ -27,11 +31,16 @@ import net.minecraftforge.fluids.capability.CapabilityFluidHandler;
 import net.minecraftforge.fluids.capability.IFluidHandler;
 import net.minecraftforge.items.CapabilityItemHandler;
 import net.minecraftforge.items.IItemHandler;
+import net.minecraftforge.items.ItemHandlerHelper;
 import net.minecraftforge.items.ItemStackHandler;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 public class ExtractorAttachment extends Attachment {
     private static final Logger LOGGER = LogManager.getLogger(ExtractorAttachment.class);
@@ -43,6 +52,11 @@ public class ExtractorAttachment extends Attachment {
     private final FluidInventory fluidFilter;
 
     private final ItemDestinationFinder itemDestinationFinder = new ItemDestinationFinder(this);
+    private final SourceSlotCursor sourceSlotCursor = new SourceSlotCursor();
+    @Nullable
+    private FilterIndex<Item> itemFilterIndex;
+    @Nullable
+    private FilterIndex<Fluid> fluidFilterIndex;
 
     private int ticks;
     private RedstoneMode redstoneMode = RedstoneMode.IGNORED;
@@ -84,6 +98,9 @@ public class ExtractorAttachment extends Attachment {
         }
 
         BlockPos destinationPos = pipe.getPos().offset(getDirection());
+        if (!NetworkManager.get(pipe.getWorld()).isChunkLoaded(destinationPos)) {
+            return;
+        }
 
         TileEntity tile = pipe.getWorld().getTileEntity(destinationPos);
         if (tile == null) {
@@ -104,45 +121,110 @@ public class ExtractorAttachment extends Attachment {
             return;
         }
 
-        int firstSlot = getSlotToExtractFrom(source);
-        if (firstSlot == -1) {
+        // Hold extraction while the routing of the network is being rebuilt.
+        DestinationPathCache destinationPathCache = network.getDestinationPathCache();
+        if (destinationPathCache == null) {
             return;
         }
 
-        ItemStack extracted = source.extractItem(firstSlot, stackSize, true);
-        if (extracted.isEmpty()) {
+        if (!sourceSlotCursor.isActive(pipe.getWorld(), sourcePos)) {
             return;
         }
 
-        Destination destination = itemDestinationFinder.find(routingMode, sourcePos, extracted);
-        if (destination == null) {
-            return;
+        sourceSlotCursor.setSlots(source.getSlots());
+
+        // Extractions going to the same destination are grouped, so that they can travel in one transport.
+        Map<Destination, List<ItemStack>> extractedByDestination = new LinkedHashMap<>();
+
+        int stacksToExtract = type.getStacksToExtract();
+        boolean foundItems = false;
+
+        // Resume where the last extraction left off, and go around the source at most once.
+        for (int visited = 0; visited < source.getSlots() && stacksToExtract > 0; ) {
+            if (!sourceSlotCursor.isSkipped()) {
+                ItemStack stack = source.getStackInSlot(sourceSlotCursor.getSlot());
+
+                if (stack.isEmpty()) {
+                    sourceSlotCursor.skipEmpty();
+                } else {
+                    foundItems = true;
+
+                    if (acceptsItem(stack) && extract(destinationPathCache, sourcePos, source, sourceSlotCursor.getSlot(), extractedByDestination)) {
+                        // Keep going with the same slot until it's empty.
+                        stacksToExtract--;
+                        continue;
+                    }
+                }
+            }
+
+            sourceSlotCursor.next();
+            visited++;
         }
 
-        Path<BlockPos> path = network
-            .getDestinationPathCache()
-            .getPath(pipe.getPos(), destination);
-        if (path == null) {
-            LOGGER.error("No path found from " + pipe.getPos() + " to " + destination);
+        // Only back off while the source stays empty, items without a destination are tried again on the next operation.
+        if (!foundItems) {
+            sourceSlotCursor.onIdle(pipe.getWorld(), sourcePos);
             return;
         }
 
-        ItemStack extractedActual = source.extractItem(firstSlot, stackSize, false);
-        if (extractedActual.isEmpty()) {
+        sourceSlotCursor.onItemsFound();
+
+        if (extractedByDestination.isEmpty()) {
             return;
         }
 
+        // The source may be a destination of this network as well, and now it has room again.
+        network.getInsertRejectionCache().invalidate(sourcePos);
+
         BlockPos fromPos = pipe.getPos().offset(getDirection());
 
-        ((ItemPipe) pipe).addTransport(new ItemTransport(
-            extractedActual.copy(),
+        // Everything going to the same destination travels as one bundle, sharing one path and one set of callbacks.
+        extractedByDestination.forEach((destination, extracted) -> ((ItemPipe) pipe).addTransport(new ItemTransport(
+            ItemStackUtil.copy(extracted),
             fromPos,
             destination.getReceiver(),
-            path.toQueue(),
-            new ItemInsertTransportCallback(destination.getReceiver(), destination.getIncomingDirection(), extractedActual),
-            new ItemBounceBackTransportCallback(destination.getReceiver(), sourcePos, extractedActual),
-            new ItemPipeGoneTransportCallback(extractedActual)
-        ));
+            destinationPathCache.getPath(pipe.getPos(), destination),
+            new ItemInsertTransportCallback(destination, extracted),
+            new ItemBounceBackTransportCallback(destination.getReceiver(), sourcePos, extracted),
+            new ItemPipeGoneTransportCallback(extracted)
+        )));
+    }
+
+    private boolean extract(DestinationPathCache destinationPathCache, BlockPos sourcePos, IItemHandler source, int slot, Map<Destination, List<ItemStack>> extractedByDestination) {
+        ItemStack extracted = source.extractItem(slot, stackSize, true);
+        if (extracted.isEmpty()) {
+            return false;
+        }
+
+        Destination destination = itemDestinationFinder.find(routingMode, destinationPathCache, sourcePos, extracted, extractedByDestination);
+        if (destination == null) {
+            return false;
+        }
+
+        TransportPath path = destinationPathCache.getPath(pipe.getPos(), destination);
+        if (path == null) {
+            LOGGER.error("No path found from " + pipe.getPos() + " to " + destination);
+            return false;
+        }
+
+        ItemStack extractedActual = source.extractItem(slot, stackSize, false);
+        if (extractedActual.isEmpty()) {
+            return false;
+        }
+
+        List<ItemStack> extractedToDestination = extractedByDestination.computeIfAbsent(destination, d -> new ArrayList<>());
+
+        // Merge with an earlier extraction of the same item when it still fits in one stack.
+        for (ItemStack other : extractedToDestination) {
+            if (ItemHandlerHelper.canItemStacksStack(other, extractedActual) && other.getCount() + extractedActual.getCount() <= other.getMaxStackSize()) {
+                other.grow(extractedActual.getCount());
+                return true;
+            }
+        }
+
+        extractedToDestination.add(extractedActual);
+
+        return true;
     }
 
     private void update(FluidNetwork network, IFluidHandler source) {
@@ -169,88 +251,65 @@ public class ExtractorAttachment extends Attachment {
         NetworkManager.get(pipe.getWorld()).markDirty();
     }
 
-    private int getSlotToExtractFrom(IItemHandler handler) {
-        for (int i = 0; i < handler.getSlots(); ++i) {
-            ItemStack stack = handler.getStackInSlot(i);
-
-            if (!stack.isEmpty() && acceptsItem(stack)) {
-                return i;
-            }
+    private boolean acceptsItem(ItemStack stack) {
+        if (blacklistWhitelist == BlacklistWhitelist.WHITELIST) {
+            return getItemFilterIndex().contains(stack.getItem(), stack.getTag());
+        } else if (blacklistWhitelist == BlacklistWhitelist.BLACKLIST) {
+            return !getItemFilterIndex().contains(stack.getItem(), stack.getTag());
         }
 
-        return -1;
+        return false;
     }
 
-    private boolean acceptsItem(ItemStack stack) {
+    private boolean acceptsFluid(FluidStack stack) {
         if (blacklistWhitelist == BlacklistWhitelist.WHITELIST) {
-            for (int i = 0; i < itemFilter.getSlots(); ++i) {
-                ItemStack filtered = itemFilter.getStackInSlot(i);
+            return getFluidFilterIndex().contains(stack.getFluid(), stack.getTag());
+        } else if (blacklistWhitelist == BlacklistWhitelist.BLACKLIST) {
+            return !getFluidFilterIndex().contains(stack.getFluid(), stack.getTag());
+        }
 
-                boolean equals = filtered.isItemEqual(stack);
-                if (exactMode) {
-                    equals = equals && ItemStack.areItemStackTagsEqual(filtered, stack);
-                }
+        return false;
+    }
 
-                if (equals) {
-                    return true;
-                }
-            }
+    // The filter indices are rebuilt on first use after the filter or the exact mode changed.
+    private FilterIndex<Item> getItemFilterIndex() {
+        if (itemFilterIndex == null) {
+            itemFilterIndex = new FilterIndex<>(exactMode);
 
-            return false;
-        } else if (blacklistWhitelist == BlacklistWhitelist.BLACKLIST) {
             for (int i = 0; i < itemFilter.getSlots(); ++i) {
                 ItemStack filtered = itemFilter.getStackInSlot(i);
 
-                boolean equals = filtered.isItemEqual(stack);
-                if (exactMode) {
-                    equals = equals && ItemStack.areItemStackTagsEqual(filtered, stack);
-                }
-
-                if (equals) {
-                    return false;
+                if (!filtered.isEmpty()) {
+                    itemFilterIndex.add(filtered.getItem(), filtered.getTag());
                 }
             }
-
-            return true;
         }
 
-        return false;
+        return itemFilterIndex;
     }
 
-    private boolean acceptsFluid(FluidStack stack) {
-        if (blacklistWhitelist == BlacklistWhitelist.WHITELIST) {
-            for (int i = 0; i < fluidFilter.getSlots(); ++i) {
-                FluidStack filtered = fluidFilter.getFluid(i);
-
-                boolean equals = filtered.getFluid() == stack.getFluid();
-                if (exactMode) {
-                    equals = equals && FluidStack.areFluidStackTagsEqual(filtered, stack);
-                }
+    private FilterIndex<Fluid> getFluidFilterIndex() {
+        if (fluidFilterIndex == null) {
+            fluidFilterIndex = new FilterIndex<>(exactMode);
 
-                if (equals) {
-                    return true;
-                }
-            }
-
-            return false;
-        } else if (blacklistWhitelist == BlacklistWhitelist.BLACKLIST) {
             for (int i = 0; i < fluidFilter.getSlots(); ++i) {
                 FluidStack filtered = fluidFilter.getFluid(i);
 
-                boolean equals = filtered.getFluid() == stack.getFluid();
-                if (exactMode) {
-                    equals = equals && FluidStack.areFluidStackTagsEqual(filtered, stack);
-                }
-
-                if (equals) {
-                    return false;
+                if (!filtered.isEmpty()) {
+                    fluidFilterIndex.add(filtered.getFluid(), filtered.getTag());
                 }
             }
-
-            return true;
         }
 
-        return false;
+        return fluidFilterIndex;
+    }
+
+    private void onFilterChanged() {
+        this.itemFilterIndex = null;
+        this.fluidFilterIndex = null;
+
+        // Slots that were skipped because of the filter may be extractable now.
+        sourceSlotCursor.reset();
     }
 
     @Override
@@ -275,7 +334,10 @@ public class ExtractorAttachment extends Attachment {
         tag.putByte("rm", (byte) redstoneMode.ordinal());
         tag.put("itemfilter", itemFilter.serializeNBT());
         tag.putByte("bw", (byte) blacklistWhitelist.ordinal());
-        tag.putInt("rr", itemDestinationFinder.getRoundRobinIndex());
+        if (itemDestinationFinder.getRoundRobinDirection() != null) {
+            tag.putLong("rrp", itemDestinationFinder.getRoundRobinReceiver());
+            tag.putInt("rrd", itemDestinationFinder.getRoundRobinDirection().ordinal());
+        }
         tag.putByte("routingm", (byte) routingMode.ordinal());
         tag.putInt("stacksi", stackSize);
         tag.putBoolean("exa", exactMode);
@@ -314,6 +376,8 @@ public class ExtractorAttachment extends Attachment {
         }
 
         this.blacklistWhitelist = blacklistWhitelist;
+
+        sourceSlotCursor.reset();
     }
 
     public BlacklistWhitelist getBlacklistWhitelist() {
@@ -348,8 +412,8 @@ public class ExtractorAttachment extends Attachment {
         return stackSize;
     }
 
-    public void setRoundRobinIndex(int roundRobinIndex) {
-        itemDestinationFinder.setRoundRobinIndex(roundRobinIndex);
+    public void setRoundRobinCursor(long receiver, Direction incomingDirection) {
+        itemDestinationFinder.setRoundRobinCursor(receiver, incomingDirection);
     }
 
     public void setExactMode(boolean exactMode) {
@@ -358,6 +422,8 @@ public class ExtractorAttachment extends Attachment {
         }
 
         this.exactMode = exactMode;
+
+        onFilterChanged();
     }
 
     public boolean isExactMode() {
@@ -371,6 +437,8 @@ public class ExtractorAttachment extends Attachment {
                 super.onContentsChanged(slot);
 
                 if (attachment != null) {
+                    attachment.onFilterChanged();
+
                     NetworkManager.get(attachment.pipe.getWorld()).markDirty();
                 }
             }
@@ -384,6 +452,8 @@ public class ExtractorAttachment extends Attachment {
                 super.onContentsChanged();
 
                 if (attachment != null) {
+                    attachment.onFilterChanged();
+
                     NetworkManager.get(attachment.pipe.getWorld()).markDirty();
                 }
             }
@@ -43,8 +43,8 @@ public class ExtractorAttachmentFactory implements AttachmentFactory {
             attachment.setBlacklistWhitelist(BlacklistWhitelist.get(tag.getByte("bw")));
         }
 
-        if (tag.contains("rr")) {
-            attachment.setRoundRobinIndex(tag.getInt("rr"));
+        if (tag.contains("rrp") && tag.contains("rrd")) {
+            attachment.setRoundRobinCursor(tag.getLong("rrp"), DirectionUtil.safeGet((byte) tag.getInt("rrd")));
         }
 
         if (tag.contains("routingm")) {
@@ -27,6 +27,10 @@ public enum ExtractorAttachmentType {
         return getConfig().getItemTickInterval();
     }
 
+    int getStacksToExtract() {
+        return getConfig().getStacksToExtract();
+    }
+
     int getFluidTickInterval() {
         return getConfig().getFluidTickInterval();
     }
@@ -0,0 +1,39 @@
+package com.refinedmods.refinedpipes.network.pipe.attachment.extractor;
+
+import net.minecraft.nbt.CompoundNBT;
+import org.apache.commons.lang3.tuple.Pair;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+// Lookup structure for the contents of an extractor filter, so that checking a stack against the filter is a hash lookup
+// instead of a comparison with every filter slot.
+// Types (items or fluids) are singletons and are compared by identity, in exact mode the tag has to match as well.
+class FilterIndex<T> {
+    private final boolean exactMode;
+    private final Set<T> types = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<Pair<T, CompoundNBT>> typesWithTag = new HashSet<>();
+
+    FilterIndex(boolean exactMode) {
+        this.exactMode = exactMode;
+    }
+
+    void add(T type, @Nullable CompoundNBT tag) {
+        types.add(type);
+
+        if (exactMode) {
+            typesWithTag.add(Pair.of(type, tag == null ? null : tag.copy()));
+        }
+    }
+
+    boolean contains(T type, @Nullable CompoundNBT tag) {
+        if (!types.contains(type)) {
+            return false;
+        }
+
+        return !exactMode || typesWithTag.contains(Pair.of(type, tag));
+    }
+}
@@ -1,74 +1,90 @@
 package com.refinedmods.refinedpipes.network.pipe.attachment.extractor;
 
+import com.refinedmods.refinedpipes.network.NetworkManager;
 import com.refinedmods.refinedpipes.network.item.ItemNetwork;
+import com.refinedmods.refinedpipes.network.item.routing.DestinationPathCache;
 import com.refinedmods.refinedpipes.network.pipe.Destination;
 import com.refinedmods.refinedpipes.network.pipe.DestinationType;
 import com.refinedmods.refinedpipes.network.pipe.attachment.Attachment;
 import net.minecraft.item.ItemStack;
-import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.Direction;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
 import net.minecraftforge.items.CapabilityItemHandler;
 import net.minecraftforge.items.IItemHandler;
 import net.minecraftforge.items.ItemHandlerHelper;
 
-import java.util.ArrayList;
+import javax.annotation.Nullable;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Predicate;
 
 public class ItemDestinationFinder {
     private final Attachment attachment;
-    private int roundRobinIndex;
+    private long roundRobinReceiver;
+    @Nullable
+    private Direction roundRobinDirection;
+    private int[] randomOrder = new int[0];
 
     public ItemDestinationFinder(Attachment attachment) {
         this.attachment = attachment;
     }
 
-    public Destination find(RoutingMode routingMode, BlockPos sourcePos, ItemStack extracted) {
+    // Committed are the stacks that were already sent to each destination earlier in the same extraction.
+    public Destination find(RoutingMode routingMode, DestinationPathCache destinationPathCache, BlockPos sourcePos, ItemStack extracted, Map<Destination, List<ItemStack>> committed) {
         ItemNetwork network = (ItemNetwork) attachment.getPipe().getNetwork();
 
+        Predicate<Destination> applicable = d -> isDestinationApplicable(network, sourcePos, getStackToInsert(extracted, committed.get(d)), d);
+
         switch (routingMode) {
             case NEAREST:
-                return network.getDestinationPathCache()
-                    .findNearestDestination(attachment.getPipe().getPos(), d -> isDestinationApplicable(sourcePos, extracted, d));
+                return destinationPathCache
+                    .findNearestDestination(attachment.getPipe().getPos(), applicable);
             case FURTHEST:
-                return network.getDestinationPathCache()
-                    .findFurthestDestination(attachment.getPipe().getPos(), d -> isDestinationApplicable(sourcePos, extracted, d));
+                return destinationPathCache
+                    .findFurthestDestination(attachment.getPipe().getPos(), applicable);
             case RANDOM: {
-                List<Destination> destinations = new ArrayList<>(network.getDestinations(DestinationType.ITEM_HANDLER));
+                List<Destination> destinations = network.getDestinations(DestinationType.ITEM_HANDLER);
+                Random random = attachment.getPipe().getWorld().getRandom();
+
+                // The order array is any permutation of the destination indices, it gets shuffled further on every call.
+                if (randomOrder.length != destinations.size()) {
+                    randomOrder = new int[destinations.size()];
+
+                    for (int i = 0; i < randomOrder.length; ++i) {
+                        randomOrder[i] = i;
+                    }
+                }
+
+                // Partial Fisher-Yates shuffle: only shuffle as far as needed to find an applicable destination.
+                for (int i = 0; i < randomOrder.length; ++i) {
+                    int j = i + random.nextInt(randomOrder.length - i);
+
+                    int randomIndex = randomOrder[j];
+                    randomOrder[j] = randomOrder[i];
+                    randomOrder[i] = randomIndex;
 
-                while (!destinations.isEmpty()) {
-                    int randomIndex = attachment.getPipe().getWorld().getRandom().nextInt(destinations.size());
                     Destination randomDestination = destinations.get(randomIndex);
 
-                    if (isDestinationApplicable(sourcePos, extracted, randomDestination)) {
+                    if (applicable.test(randomDestination)) {
                         return randomDestination;
                     }
-
-                    destinations.remove(randomIndex);
                 }
 
                 return null;
             }
             case ROUND_ROBIN: {
                 List<Destination> destinations = network.getDestinations(DestinationType.ITEM_HANDLER);
-                if (destinations.isEmpty()) {
-                    return null;
-                }
+                int start = getRoundRobinStart(destinations);
 
-                if (roundRobinIndex >= destinations.size()) {
-                    roundRobinIndex = 0;
-                }
+                for (int i = 0; i < destinations.size(); ++i) {
+                    Destination dest = destinations.get((start + i) % destinations.size());
 
-                while (true) {
-                    Destination dest = destinations.get(roundRobinIndex);
-
-                    if (isDestinationApplicable(sourcePos, extracted, dest)) {
-                        roundRobinIndex++;
+                    if (applicable.test(dest)) {
+                        roundRobinReceiver = dest.getReceiver().toLong();
+                        roundRobinDirection = dest.getIncomingDirection();
                         return dest;
-                    } else {
-                        roundRobinIndex++;
-                        if (roundRobinIndex >= destinations.size()) {
-                            break;
-                        }
                     }
                 }
 
@@ -79,13 +95,43 @@ public class ItemDestinationFinder {
         }
     }
 
-    private boolean isDestinationApplicable(BlockPos sourcePos, ItemStack extracted, Destination destination) {
-        TileEntity tile = destination.getConnectedPipe().getWorld().getTileEntity(destination.getReceiver());
-        if (tile == null) {
+    // The stacks of one extraction that go to the same destination have to fit together. One simulated insert can only
+    // check a single item, so a destination only takes one type of item per extraction.
+    private static ItemStack getStackToInsert(ItemStack extracted, @Nullable List<ItemStack> committed) {
+        if (committed == null) {
+            return extracted;
+        }
+
+        int count = extracted.getCount();
+
+        for (ItemStack stack : committed) {
+            if (!ItemHandlerHelper.canItemStacksStack(stack, extracted)) {
+                return ItemStack.EMPTY;
+            }
+
+            count += stack.getCount();
+        }
+
+        return ItemHandlerHelper.copyStackWithSize(extracted, count);
+    }
+
+    private boolean isDestinationApplicable(ItemNetwork network, BlockPos sourcePos, ItemStack extracted, Destination destination) {
+        if (extracted.isEmpty()) {
             return false;
         }
 
-        IItemHandler handler = tile.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, destination.getIncomingDirection().getOpposite()).orElse(null);
+        World world = attachment.getPipe().getWorld();
+
+        if (!NetworkManager.get(world).isChunkLoaded(destination.getReceiver())) {
+            return false;
+        }
+
+        // Known full destinations are skipped before looking anything up.
+        if (network.getInsertRejectionCache().isRejected(world, destination, extracted)) {
+            return false;
+        }
+
+        IItemHandler handler = destination.getHandler(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY).orElse(null);
         if (handler == null) {
             return false;
         }
@@ -96,14 +142,48 @@ public class ItemDestinationFinder {
             return false;
         }
 
-        return ItemHandlerHelper.insertItem(handler, extracted, true).isEmpty();
+        if (!ItemHandlerHelper.insertItem(handler, extracted, true).isEmpty()) {
+            network.getInsertRejectionCache().reject(world, destination, extracted);
+            return false;
+        }
+
+        return true;
+    }
+
+    // Destinations are sorted by receiver, the cursor remembers the last receiver we sent to instead of an index.
+    // That way, the next destination in line stays the same when other destinations come and go.
+    private int getRoundRobinStart(List<Destination> destinations) {
+        if (roundRobinDirection == null) {
+            return 0;
+        }
+
+        int low = 0;
+        int high = destinations.size();
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+
+            if (Destination.compare(destinations.get(mid), roundRobinReceiver, roundRobinDirection) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    public long getRoundRobinReceiver() {
+        return roundRobinReceiver;
     }
 
-    public int getRoundRobinIndex() {
-        return roundRobinIndex;
+    @Nullable
+    public Direction getRoundRobinDirection() {
+        return roundRobinDirection;
     }
 
-    public void setRoundRobinIndex(int roundRobinIndex) {
-        this.roundRobinIndex = roundRobinIndex;
+    public void setRoundRobinCursor(long receiver, Direction incomingDirection) {
+        this.roundRobinReceiver = receiver;
+        this.roundRobinDirection = incomingDirection;
     }
 }
@@ -0,0 +1,88 @@
+package com.refinedmods.refinedpipes.network.pipe.attachment.extractor;
+
+import com.refinedmods.refinedpipes.util.ComparatorUtil;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+import java.util.BitSet;
+
+// Remembers where an extractor left off in its source inventory, so that every extraction resumes the scan instead of
+// starting over at the first slot.
+// Empty slots are skipped until the cursor went around the source once. When a whole pass finds the source empty,
+// the extractor backs off until the comparator output of the source changes (when it has one) or the back off is over.
+class SourceSlotCursor {
+    private static final int MIN_IDLE_TICKS = 5;
+    private static final int MAX_IDLE_TICKS = 80;
+
+    private final BitSet skippedSlots = new BitSet();
+    private int slots;
+    private int slot;
+    private int idleTicks;
+    private long idleUntilTick;
+    private int comparatorLevel = -1;
+
+    // The comparator output is only checked while backing off, most inventories compute it by walking all of their slots.
+    boolean isActive(World world, BlockPos sourcePos) {
+        if (world.getGameTime() >= idleUntilTick) {
+            return true;
+        }
+
+        // The contents of the source changed, that ends the back off early.
+        if (ComparatorUtil.getLevel(world, sourcePos) != comparatorLevel) {
+            skippedSlots.clear();
+            idleUntilTick = 0;
+
+            return true;
+        }
+
+        return false;
+    }
+
+    void setSlots(int slots) {
+        if (this.slots != slots) {
+            this.slots = slots;
+            this.slot = 0;
+            this.skippedSlots.clear();
+        }
+    }
+
+    int getSlot() {
+        return slot;
+    }
+
+    boolean isSkipped() {
+        return skippedSlots.get(slot);
+    }
+
+    // Only for empty slots, slots with items that can't be extracted right now are tried again on the next pass.
+    void skipEmpty() {
+        skippedSlots.set(slot);
+    }
+
+    void next() {
+        if (slot + 1 >= slots) {
+            slot = 0;
+
+            // Refilled slots can go unnoticed without a comparator, so start over after every round.
+            skippedSlots.clear();
+        } else {
+            slot++;
+        }
+    }
+
+    void onItemsFound() {
+        idleTicks = 0;
+    }
+
+    void onIdle(World world, BlockPos sourcePos) {
+        idleTicks = idleTicks == 0 ? MIN_IDLE_TICKS : Math.min(idleTicks * 2, MAX_IDLE_TICKS);
+        idleUntilTick = world.getGameTime() + idleTicks;
+        comparatorLevel = ComparatorUtil.getLevel(world, sourcePos);
+    }
+
+    void reset() {
+        skippedSlots.clear();
+        idleTicks = 0;
+        idleUntilTick = 0;
+    }
+}
@@ -13,7 +13,6 @@ public class FluidPipe extends Pipe {
     public static final ResourceLocation ID = new ResourceLocation(RefinedPipes.ID, "fluid");
 
     private final FluidPipeType type;
-    private float lastFullness = 0;
 
     public FluidPipe(World world, BlockPos pos, FluidPipeType type) {
         super(world, pos);
@@ -21,27 +20,12 @@ public class FluidPipe extends Pipe {
         this.type = type;
     }
 
-    @Override
-    public void update() {
-        super.update();
-
-        float f = getFullness();
-        if (Math.abs(lastFullness - f) >= 0.1) {
-            lastFullness = f;
-
-            sendFluidPipeUpdate();
-        }
-    }
-
     public void sendFluidPipeUpdate() {
         RefinedPipes.NETWORK.sendInArea(world, pos, 32, new FluidPipeMessage(pos, ((FluidNetwork) network).getFluidTank().getFluid(), getFullness()));
     }
 
     public float getFullness() {
-        int cap = ((FluidNetwork) network).getFluidTank().getCapacity();
-        int stored = ((FluidNetwork) network).getFluidTank().getFluidAmount();
-
-        return Math.round(((float) stored / (float) cap) * 10.0F) / 10.0F;
+        return ((FluidNetwork) network).getFullness();
     }
 
     public FluidPipeType getType() {
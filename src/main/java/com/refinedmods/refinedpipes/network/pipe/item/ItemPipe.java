@@ -2,7 +2,7 @@ package com.refinedmods.refinedpipes.network.pipe.item;
 
 import com.refinedmods.refinedpipes.RefinedPipes;
 import com.refinedmods.refinedpipes.message.ItemTransportMessage;
-import com.refinedmods.refinedpipes.network.NetworkManager;
+import com.refinedmods.refinedpipes.network.Network;
 import com.refinedmods.refinedpipes.network.item.ItemNetwork;
 import com.refinedmods.refinedpipes.network.pipe.Pipe;
 import com.refinedmods.refinedpipes.network.pipe.transport.ItemTransport;
@@ -20,8 +20,6 @@ public class ItemPipe extends Pipe {
     public static final ResourceLocation ID = new ResourceLocation(RefinedPipes.ID, "item");
 
     private final List<ItemTransport> transports = new ArrayList<>();
-    private final List<ItemTransport> transportsToAdd = new ArrayList<>();
-    private final List<ItemTransport> transportsToRemove = new ArrayList<>();
     private final ItemPipeType type;
 
     public ItemPipe(World world, BlockPos pos, ItemPipeType type) {
@@ -30,26 +28,13 @@ public class ItemPipe extends Pipe {
         this.type = type;
     }
 
-    public void update() {
-        super.update();
-
-        transports.addAll(transportsToAdd);
-        transports.removeAll(transportsToRemove);
-
-        if (!transportsToAdd.isEmpty() || !transportsToRemove.isEmpty()) {
-            NetworkManager.get(world).markDirty();
-            sendTransportUpdate();
-        }
-
-        if (!transports.isEmpty()) {
-            NetworkManager.get(world).markDirty();
-        }
-
-        transportsToAdd.clear();
-        transportsToRemove.clear();
+    @Override
+    public void joinNetwork(Network network) {
+        super.joinNetwork(network);
 
-        if (transports.removeIf(t -> t.update(network, this))) {
-            NetworkManager.get(world).markDirty();
+        // The transports move along to the scheduler of the new network.
+        for (ItemTransport transport : transports) {
+            transport.schedule((ItemNetwork) network, world.getGameTime());
         }
     }
 
@@ -58,11 +43,20 @@ public class ItemPipe extends Pipe {
     }
 
     public void addTransport(ItemTransport transport) {
-        transportsToAdd.add(transport);
+        transports.add(transport);
+
+        transport.enterPipe(this, world.getGameTime());
+        transport.schedule((ItemNetwork) network, world.getGameTime());
+
+        ((ItemNetwork) network).markTransportsChanged(this);
     }
 
     public void removeTransport(ItemTransport transport) {
-        transportsToRemove.add(transport);
+        transports.remove(transport);
+
+        transport.leavePipe();
+
+        ((ItemNetwork) network).markTransportsChanged(this);
     }
 
     public void sendTransportUpdate() {
@@ -24,7 +24,7 @@ public class ItemPipeFactory implements PipeFactory {
         for (int i = 0; i < transports.size(); ++i) {
             CompoundNBT transportTag = transports.getCompound(i);
 
-            ItemTransport itemTransport = ItemTransport.of(transportTag);
+            ItemTransport itemTransport = ItemTransport.of(transportTag, pipe);
             if (itemTransport != null) {
                 pipe.getTransports().add(itemTransport);
             }
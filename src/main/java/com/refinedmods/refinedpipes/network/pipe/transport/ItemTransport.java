@@ -1,12 +1,14 @@
 package com.refinedmods.refinedpipes.network.pipe.transport;
 
 import com.refinedmods.refinedpipes.network.Network;
+import com.refinedmods.refinedpipes.network.item.ItemNetwork;
 import com.refinedmods.refinedpipes.network.pipe.Pipe;
 import com.refinedmods.refinedpipes.network.pipe.item.ItemPipe;
 import com.refinedmods.refinedpipes.network.pipe.transport.callback.TransportCallback;
 import com.refinedmods.refinedpipes.network.pipe.transport.callback.TransportCallbackFactory;
 import com.refinedmods.refinedpipes.network.pipe.transport.callback.TransportCallbackFactoryRegistry;
 import com.refinedmods.refinedpipes.util.DirectionUtil;
+import com.refinedmods.refinedpipes.util.ItemStackUtil;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.nbt.INBT;
@@ -21,107 +23,180 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nullable;
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.ArrayList;
+import java.util.List;
 
 public class ItemTransport {
     private static final Logger LOGGER = LogManager.getLogger(ItemTransport.class);
 
-    private final ItemStack value;
+    private final List<ItemStack> stacks; // Stacks travelling together to the same destination.
     private final BlockPos source;
     private final BlockPos destination;
-    private final Deque<BlockPos> path;
+    private final TransportPath path;
     private final Direction initialDirection;
     private final TransportCallback finishedCallback;
     private final TransportCallback cancelCallback;
     private final TransportCallback pipeGoneCallback;
+    private int pathIndex; // Index of the current pipe in the path.
     private boolean firstPipe = true;
-    private int progressInCurrentPipe;
+    @Nullable
+    private ItemPipe currentPipe;
+    private long enteredTick; // Tick at which the transport entered the current pipe.
+    private long departureTick;
+    @Nullable
+    private int[] hopEnds; // Ticks after departure at which the transport reaches the end of each pipe on the path.
+    private long wakeTick; // Tick of the next event, see ItemTransportScheduler.
 
-    public ItemTransport(ItemStack value, BlockPos source, BlockPos destination, Deque<BlockPos> path, TransportCallback finishedCallback, TransportCallback cancelCallback, TransportCallback pipeGoneCallback) {
-        this.value = value;
+    public ItemTransport(List<ItemStack> stacks, BlockPos source, BlockPos destination, TransportPath path, TransportCallback finishedCallback, TransportCallback cancelCallback, TransportCallback pipeGoneCallback) {
+        this.stacks = stacks;
         this.source = source;
         this.destination = destination;
         this.path = path;
-        this.initialDirection = getDirection(source, path.peek());
-        this.path.poll(); // Pop first pipe.
+        this.initialDirection = getDirection(source, path.getOrigin());
         this.finishedCallback = finishedCallback;
         this.cancelCallback = cancelCallback;
         this.pipeGoneCallback = pipeGoneCallback;
     }
 
-    public ItemTransport(ItemStack value, BlockPos source, BlockPos destination, Deque<BlockPos> path, Direction initialDirection, TransportCallback finishedCallback, TransportCallback cancelCallback, TransportCallback pipeGoneCallback, boolean firstPipe, int progressInCurrentPipe) {
-        this.value = value;
+    public ItemTransport(List<ItemStack> stacks, BlockPos source, BlockPos destination, TransportPath path, int pathIndex, Direction initialDirection, TransportCallback finishedCallback, TransportCallback cancelCallback, TransportCallback pipeGoneCallback, boolean firstPipe, ItemPipe currentPipe, long enteredTick, long departureTick, @Nullable int[] hopEnds) {
+        this.stacks = stacks;
         this.source = source;
         this.destination = destination;
         this.path = path;
+        this.pathIndex = pathIndex;
         this.initialDirection = initialDirection;
         this.finishedCallback = finishedCallback;
         this.cancelCallback = cancelCallback;
         this.pipeGoneCallback = pipeGoneCallback;
         this.firstPipe = firstPipe;
-        this.progressInCurrentPipe = progressInCurrentPipe;
+        this.currentPipe = currentPipe;
+        this.enteredTick = enteredTick;
+        this.departureTick = departureTick;
+        this.hopEnds = hopEnds;
     }
 
-    public ItemStack getValue() {
-        return value;
+    public List<ItemStack> getStacks() {
+        return stacks;
     }
 
     public Direction getDirection(ItemPipe currentPipe) {
-        BlockPos nextPipe = path.peek();
-
-        if (nextPipe == null) {
+        if (isLastPipe()) {
             return getDirection(currentPipe.getPos(), destination);
         }
 
-        return getDirection(currentPipe.getPos(), nextPipe);
+        return path.getDirection(pathIndex);
+    }
+
+    @Nullable
+    public ItemPipe getCurrentPipe() {
+        return currentPipe;
+    }
+
+    public long getWakeTick() {
+        return wakeTick;
+    }
+
+    public void enterPipe(ItemPipe pipe, long tick) {
+        this.currentPipe = pipe;
+        this.enteredTick = tick;
+    }
+
+    public void leavePipe() {
+        this.currentPipe = null;
+    }
+
+    // The transport is only woken up at the end of each pipe.
+    public void schedule(ItemNetwork network, long tick) {
+        if (hopEnds == null) {
+            hopEnds = computeHopEnds(network);
+            departureTick = enteredTick - getHopStart(pathIndex);
+        }
+
+        wakeTick = Math.max(tick + 1, departureTick + hopEnds[pathIndex]);
+
+        network.getTransportScheduler().schedule(this);
+    }
+
+    // Delays the next event, the rest of the trip is shifted by the same amount of time.
+    public void postpone(ItemNetwork network, long tick) {
+        delay(tick - wakeTick);
+
+        network.getTransportScheduler().schedule(this);
+    }
+
+    // Shifts the rest of the trip by the given amount of ticks, without scheduling the transport again.
+    public void delay(long ticks) {
+        enteredTick += ticks;
+        departureTick += ticks;
+        wakeTick += ticks;
+    }
+
+    // The arrival at every pipe is determined by the pipe types along the path, so it's computed once when the transport departs.
+    private int[] computeHopEnds(Network network) {
+        int[] hopEnds = new int[path.getLength()];
+
+        BlockPos pos = path.getOrigin();
+        int end = 0;
+
+        for (int i = 0; i < hopEnds.length; ++i) {
+            Pipe pipe = network.getPipe(pos);
+
+            // If a pipe is already gone, that's noticed when the transport gets there.
+            end += getTicksInPipe(pipe instanceof ItemPipe ? (ItemPipe) pipe : currentPipe, i);
+            hopEnds[i] = end;
+
+            if (i + 1 < hopEnds.length) {
+                pos = pos.offset(path.getDirection(i));
+            }
+        }
+
+        return hopEnds;
+    }
+
+    private int getHopStart(int pipe) {
+        return pipe == 0 ? 0 : hopEnds[pipe - 1];
     }
 
-    private boolean onDone(Network network, World world, ItemPipe currentPipe) {
+    private void onDone(Network network, World world, ItemPipe currentPipe) {
         finishedCallback.call(network, world, currentPipe.getPos(), cancelCallback);
-        return true;
     }
 
-    private boolean onPipeGone(Network network, World world, BlockPos posWherePipeIsGone) {
+    private void onPipeGone(Network network, World world, BlockPos posWherePipeIsGone) {
         LOGGER.warn("Pipe on path is gone");
         pipeGoneCallback.call(network, world, posWherePipeIsGone, cancelCallback);
-        return true;
     }
 
-    public boolean update(Network network, ItemPipe currentPipe) {
-        progressInCurrentPipe += 1;
-
-        double progress = (double) progressInCurrentPipe / (double) getMaxTicksInPipe(currentPipe);
+    public void wake(ItemNetwork network, long tick) {
+        ItemPipe currentPipe = this.currentPipe;
 
         BlockPos nextPos = currentPipe.getPos().offset(getDirection(currentPipe));
-        if (progress > 0.25 && currentPipe.getWorld().isAirBlock(nextPos)) {
+        if (currentPipe.getWorld().isAirBlock(nextPos)) {
             currentPipe.removeTransport(this);
-            return onPipeGone(network, currentPipe.getWorld(), nextPos);
+            onPipeGone(network, currentPipe.getWorld(), nextPos);
+            return;
         }
 
-        if (progressInCurrentPipe >= getMaxTicksInPipe(currentPipe)) {
-            currentPipe.removeTransport(this);
-            firstPipe = false;
+        currentPipe.removeTransport(this);
+        firstPipe = false;
 
-            BlockPos nextPipePos = path.poll();
-            if (nextPipePos == null) {
-                return onDone(network, currentPipe.getWorld(), currentPipe);
-            }
+        if (isLastPipe()) {
+            onDone(network, currentPipe.getWorld(), currentPipe);
+            return;
+        }
 
-            Pipe nextPipe = network.getPipe(nextPipePos);
-            if (nextPipe == null) {
-                return onPipeGone(network, currentPipe.getWorld(), nextPipePos);
-            }
+        BlockPos nextPipePos = currentPipe.getPos().offset(path.getDirection(pathIndex++));
 
-            progressInCurrentPipe = 0;
-            ((ItemPipe) nextPipe).addTransport(this);
+        Pipe nextPipe = network.getPipe(nextPipePos);
+        if (nextPipe == null) {
+            onPipeGone(network, currentPipe.getWorld(), nextPipePos);
+            return;
         }
 
-        return false;
+        ((ItemPipe) nextPipe).addTransport(this);
     }
 
     private boolean isLastPipe() {
-        return path.isEmpty();
+        return pathIndex >= path.getLength() - 1;
     }
 
     private static Direction getDirection(BlockPos a, BlockPos b) {
@@ -152,25 +227,26 @@ public class ItemTransport {
         return Direction.NORTH;
     }
 
-    private int getMaxTicksInPipe(ItemPipe currentPipe) {
-        double mt = currentPipe.getMaxTicksInPipe();
+    private int getTicksInPipe(ItemPipe pipe, int index) {
+        double mt = pipe.getMaxTicksInPipe();
 
-        if (firstPipe) {
+        if (index == 0 && firstPipe) {
             mt *= 1.25D;
         }
 
-        if (isLastPipe()) {
+        if (index == path.getLength() - 1) {
             mt *= 0.25D;
         }
 
-        return (int) mt;
+        return Math.max((int) mt, 1);
     }
 
     public ItemTransportProps createProps(ItemPipe currentPipe) {
+        // Only the first stack of a bundle is shown.
         return new ItemTransportProps(
-            value,
-            currentPipe.getMaxTicksInPipe(),
-            progressInCurrentPipe,
+            stacks.get(0),
+            departureTick + getHopStart(pathIndex),
+            departureTick + hopEnds[pathIndex],
             getDirection(currentPipe),
             initialDirection,
             isLastPipe(),
@@ -179,15 +255,12 @@ public class ItemTransport {
     }
 
     public CompoundNBT writeToNbt(CompoundNBT tag) {
-        tag.put("v", value.write(new CompoundNBT()));
+        tag.put("vs", ItemStackUtil.write(stacks));
         tag.putLong("src", source.toLong());
         tag.putLong("dst", destination.toLong());
 
-        ListNBT path = new ListNBT();
-        for (BlockPos pathItem : this.path) {
-            path.add(LongNBT.valueOf(pathItem.toLong()));
-        }
-        tag.put("pth", path);
+        tag.put("tp", path.writeToNbt(new CompoundNBT()));
+        tag.putInt("tpi", pathIndex);
 
         tag.putInt("initiald", initialDirection.ordinal());
 
@@ -199,15 +272,19 @@ public class ItemTransport {
         tag.putString("pgcid", pipeGoneCallback.getId().toString());
 
         tag.putBoolean("fp", firstPipe);
-        tag.putInt("p", progressInCurrentPipe);
+        tag.putInt("p", (int) (currentPipe.getWorld().getGameTime() - enteredTick));
+        if (hopEnds != null) {
+            tag.putLong("dt", departureTick);
+            tag.putIntArray("he", hopEnds);
+        }
 
         return tag;
     }
 
     @Nullable
-    public static ItemTransport of(CompoundNBT tag) {
-        ItemStack value = ItemStack.read(tag.getCompound("v"));
-        if (value.isEmpty()) {
+    public static ItemTransport of(CompoundNBT tag, ItemPipe currentPipe) {
+        List<ItemStack> stacks = ItemStackUtil.read(tag, "vs", "v");
+        if (stacks.isEmpty()) {
             LOGGER.warn("Item no longer exists");
             return null;
         }
@@ -215,10 +292,28 @@ public class ItemTransport {
         BlockPos source = BlockPos.fromLong(tag.getLong("src"));
         BlockPos destination = BlockPos.fromLong(tag.getLong("dst"));
 
-        ListNBT pathTag = tag.getList("pth", Constants.NBT.TAG_LONG);
-        Deque<BlockPos> path = new ArrayDeque<>();
-        for (INBT pathItem : pathTag) {
-            path.add(BlockPos.fromLong(((LongNBT) pathItem).getLong()));
+        TransportPath path;
+        int pathIndex;
+
+        if (tag.contains("tp")) {
+            path = TransportPath.of(tag.getCompound("tp"));
+            pathIndex = tag.getInt("tpi");
+
+            if (path == null || pathIndex < 0 || pathIndex >= path.getLength()) {
+                LOGGER.warn("Transport path is invalid");
+                return null;
+            }
+        } else {
+            // @BC: the path used to be stored as the list of pipes after the current pipe.
+            ListNBT pathTag = tag.getList("pth", Constants.NBT.TAG_LONG);
+            List<BlockPos> pipes = new ArrayList<>();
+            pipes.add(currentPipe.getPos());
+            for (INBT pathItem : pathTag) {
+                pipes.add(BlockPos.fromLong(((LongNBT) pathItem).getLong()));
+            }
+
+            path = TransportPath.of(pipes);
+            pathIndex = 0;
         }
 
         Direction initialDirection = DirectionUtil.safeGet((byte) tag.getInt("initd"));
@@ -262,17 +357,33 @@ public class ItemTransport {
         boolean firstPipe = tag.getBoolean("fp");
         int progressInCurrentPipe = tag.getInt("p");
 
+        long departureTick = 0;
+        int[] hopEnds = null;
+        if (tag.contains("he")) {
+            departureTick = tag.getLong("dt");
+            hopEnds = tag.getIntArray("he");
+
+            if (hopEnds.length != path.getLength()) {
+                LOGGER.warn("Transport hop timestamps are invalid");
+                hopEnds = null;
+            }
+        }
+
         return new ItemTransport(
-            value,
+            stacks,
             source,
             destination,
             path,
+            pathIndex,
             initialDirection,
             finishedCallback,
             cancelCallback,
             pipeGoneCallback,
             firstPipe,
-            progressInCurrentPipe
+            currentPipe,
+            currentPipe.getWorld().getGameTime() - progressInCurrentPipe,
+            departureTick,
+            hopEnds
         );
     }
 }
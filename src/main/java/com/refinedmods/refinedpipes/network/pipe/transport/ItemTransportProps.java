@@ -7,17 +7,17 @@ import net.minecraft.util.Direction;
 
 public class ItemTransportProps {
     private final ItemStack stack;
-    private final int maxTicksInPipe;
-    private int progress;
+    private final long startTick;
+    private final long endTick;
     private final Direction direction;
     private final Direction initialDirection;
     private final boolean lastPipe;
     private final boolean firstPipe;
 
-    public ItemTransportProps(ItemStack stack, int maxTicksInPipe, int progress, Direction direction, Direction initialDirection, boolean lastPipe, boolean firstPipe) {
+    public ItemTransportProps(ItemStack stack, long startTick, long endTick, Direction direction, Direction initialDirection, boolean lastPipe, boolean firstPipe) {
         this.stack = stack;
-        this.maxTicksInPipe = maxTicksInPipe;
-        this.progress = progress;
+        this.startTick = startTick;
+        this.endTick = endTick;
         this.direction = direction;
         this.initialDirection = initialDirection;
         this.lastPipe = lastPipe;
@@ -26,8 +26,8 @@ public class ItemTransportProps {
 
     public void writeToBuffer(PacketBuffer buf) {
         buf.writeItemStack(stack);
-        buf.writeInt(maxTicksInPipe);
-        buf.writeInt(progress);
+        buf.writeLong(startTick);
+        buf.writeLong(endTick);
         buf.writeInt(direction.ordinal());
         buf.writeInt(initialDirection.ordinal());
         buf.writeBoolean(lastPipe);
@@ -37,8 +37,8 @@ public class ItemTransportProps {
     public static ItemTransportProps create(PacketBuffer buf) {
         return new ItemTransportProps(
             buf.readItemStack(),
-            buf.readInt(),
-            buf.readInt(),
+            buf.readLong(),
+            buf.readLong(),
             DirectionUtil.safeGet((byte) buf.readInt()),
             DirectionUtil.safeGet((byte) buf.readInt()),
             buf.readBoolean(),
@@ -46,20 +46,16 @@ public class ItemTransportProps {
         );
     }
 
-    public void tick() {
-        progress++;
-    }
-
     public ItemStack getStack() {
         return stack;
     }
 
-    public int getMaxTicksInPipe() {
-        return maxTicksInPipe;
+    public long getStartTick() {
+        return startTick;
     }
 
-    public int getProgress() {
-        return progress;
+    public long getEndTick() {
+        return endTick;
     }
 
     public Direction getDirection() {
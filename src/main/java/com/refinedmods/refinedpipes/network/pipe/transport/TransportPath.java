@@ -0,0 +1,111 @@
+package com.refinedmods.refinedpipes.network.pipe.transport;
+
+import com.refinedmods.refinedpipes.routing.Path;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.util.Direction;
+import net.minecraft.util.math.BlockPos;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+// The pipes an item travels through, stored as the position of the first pipe and the direction to the next pipe for every hop.
+// Directions take 3 bits each and are packed 21 to a long, instead of keeping a BlockPos for every pipe.
+// Immutable, so it can be shared between transports.
+public class TransportPath {
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int BITS_PER_DIRECTION = 3;
+    private static final int DIRECTIONS_PER_LONG = Long.SIZE / BITS_PER_DIRECTION;
+    private static final long DIRECTION_MASK = (1L << BITS_PER_DIRECTION) - 1;
+
+    private final BlockPos origin;
+    private final long[] directions;
+    private final int length;
+
+    private TransportPath(BlockPos origin, long[] directions, int length) {
+        this.origin = origin;
+        this.directions = directions;
+        this.length = length;
+    }
+
+    public static TransportPath of(Path<BlockPos> path) {
+        List<BlockPos> pipes = new ArrayList<>(path.length());
+
+        for (int i = 0; i < path.length(); ++i) {
+            pipes.add(path.at(i).getId());
+        }
+
+        return of(pipes);
+    }
+
+    public static TransportPath of(List<BlockPos> pipes) {
+        if (pipes.isEmpty()) {
+            throw new RuntimeException("Transport path cannot be empty");
+        }
+
+        long[] directions = new long[getPackedLength(pipes.size())];
+
+        for (int i = 0; i < pipes.size() - 1; ++i) {
+            Direction dir = getDirection(pipes.get(i), pipes.get(i + 1));
+
+            directions[i / DIRECTIONS_PER_LONG] |= (long) dir.ordinal() << ((i % DIRECTIONS_PER_LONG) * BITS_PER_DIRECTION);
+        }
+
+        return new TransportPath(pipes.get(0), directions, pipes.size());
+    }
+
+    private static int getPackedLength(int length) {
+        return (length - 1 + DIRECTIONS_PER_LONG - 1) / DIRECTIONS_PER_LONG;
+    }
+
+    private static Direction getDirection(BlockPos from, BlockPos to) {
+        for (Direction dir : DIRECTIONS) {
+            if (from.offset(dir).equals(to)) {
+                return dir;
+            }
+        }
+
+        throw new RuntimeException("Pipes " + from + " and " + to + " on transport path are not adjacent");
+    }
+
+    public BlockPos getOrigin() {
+        return origin;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    // The direction from the pipe at the given index to the next pipe.
+    public Direction getDirection(int pipe) {
+        long packed = directions[pipe / DIRECTIONS_PER_LONG];
+
+        return DIRECTIONS[(int) ((packed >>> ((pipe % DIRECTIONS_PER_LONG) * BITS_PER_DIRECTION)) & DIRECTION_MASK)];
+    }
+
+    public CompoundNBT writeToNbt(CompoundNBT tag) {
+        tag.putLong("o", origin.toLong());
+        tag.putInt("l", length);
+        tag.putLongArray("d", directions);
+
+        return tag;
+    }
+
+    @Nullable
+    public static TransportPath of(CompoundNBT tag) {
+        int length = tag.getInt("l");
+        long[] directions = tag.getLongArray("d");
+
+        if (length <= 0 || directions.length != getPackedLength(length)) {
+            return null;
+        }
+
+        for (int i = 0; i < length - 1; ++i) {
+            if (((directions[i / DIRECTIONS_PER_LONG] >>> ((i % DIRECTIONS_PER_LONG) * BITS_PER_DIRECTION)) & DIRECTION_MASK) >= DIRECTIONS.length) {
+                return null;
+            }
+        }
+
+        return new TransportPath(BlockPos.fromLong(tag.getLong("o")), directions, length);
+    }
+}
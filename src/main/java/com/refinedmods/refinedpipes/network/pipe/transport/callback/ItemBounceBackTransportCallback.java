@@ -2,6 +2,7 @@ package com.refinedmods.refinedpipes.network.pipe.transport.callback;
 
 import com.refinedmods.refinedpipes.RefinedPipes;
 import com.refinedmods.refinedpipes.network.Network;
+import com.refinedmods.refinedpipes.util.ItemStackUtil;
 import net.minecraft.inventory.InventoryHelper;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.CompoundNBT;
@@ -12,6 +13,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nullable;
+import java.util.List;
 
 public class ItemBounceBackTransportCallback implements TransportCallback {
     private static final Logger LOGGER = LogManager.getLogger(ItemBounceBackTransportCallback.class);
@@ -20,9 +22,9 @@ public class ItemBounceBackTransportCallback implements TransportCallback {
 
     private final BlockPos originalItemHandlerPosition;
     private final BlockPos bounceBackItemHandlerPosition;
-    private final ItemStack toInsert;
+    private final List<ItemStack> toInsert;
 
-    public ItemBounceBackTransportCallback(BlockPos originalItemHandlerPosition, BlockPos bounceBackItemHandlerPosition, ItemStack toInsert) {
+    public ItemBounceBackTransportCallback(BlockPos originalItemHandlerPosition, BlockPos bounceBackItemHandlerPosition, List<ItemStack> toInsert) {
         this.originalItemHandlerPosition = originalItemHandlerPosition;
         this.bounceBackItemHandlerPosition = bounceBackItemHandlerPosition;
         this.toInsert = toInsert;
@@ -31,7 +33,14 @@ public class ItemBounceBackTransportCallback implements TransportCallback {
     @Override
     public void call(Network network, World world, BlockPos currentPos, TransportCallback cancelCallback) {
         // TODO: Actually bounce back...
-        InventoryHelper.spawnItemStack(world, originalItemHandlerPosition.getX(), originalItemHandlerPosition.getY(), originalItemHandlerPosition.getZ(), toInsert);
+        for (ItemStack stack : toInsert) {
+            InventoryHelper.spawnItemStack(world, originalItemHandlerPosition.getX(), originalItemHandlerPosition.getY(), originalItemHandlerPosition.getZ(), stack);
+        }
+    }
+
+    @Override
+    public TransportCallback withStacks(List<ItemStack> stacks) {
+        return new ItemBounceBackTransportCallback(originalItemHandlerPosition, bounceBackItemHandlerPosition, stacks);
     }
 
     @Override
@@ -43,7 +52,7 @@ public class ItemBounceBackTransportCallback implements TransportCallback {
     public static ItemBounceBackTransportCallback of(CompoundNBT tag) {
         BlockPos originalItemHandlerPosition = BlockPos.fromLong(tag.getLong("oihpos"));
         BlockPos bounceBackItemHandlerPosition = BlockPos.fromLong(tag.getLong("bbihpos"));
-        ItemStack toInsert = ItemStack.read(tag.getCompound("s"));
+        List<ItemStack> toInsert = ItemStackUtil.read(tag, "ss", "s");
 
         if (toInsert.isEmpty()) {
             LOGGER.warn("Item no longer exists");
@@ -57,7 +66,7 @@ public class ItemBounceBackTransportCallback implements TransportCallback {
     public CompoundNBT writeToNbt(CompoundNBT tag) {
         tag.putLong("oihpos", originalItemHandlerPosition.toLong());
         tag.putLong("bbihpos", bounceBackItemHandlerPosition.toLong());
-        tag.put("s", toInsert.write(new CompoundNBT()));
+        tag.put("ss", ItemStackUtil.write(toInsert));
 
         return tag;
     }
@@ -2,7 +2,9 @@ package com.refinedmods.refinedpipes.network.pipe.transport.callback;
 
 import com.refinedmods.refinedpipes.RefinedPipes;
 import com.refinedmods.refinedpipes.network.Network;
+import com.refinedmods.refinedpipes.network.pipe.Destination;
 import com.refinedmods.refinedpipes.util.DirectionUtil;
+import com.refinedmods.refinedpipes.util.ItemStackUtil;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.tileentity.TileEntity;
@@ -17,6 +19,8 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
 
 public class ItemInsertTransportCallback implements TransportCallback {
     private static final Logger LOGGER = LogManager.getLogger(ItemInsertTransportCallback.class);
@@ -25,34 +29,60 @@ public class ItemInsertTransportCallback implements TransportCallback {
 
     private final BlockPos itemHandlerPosition;
     private final Direction incomingDirection;
-    private final ItemStack toInsert;
+    private final List<ItemStack> toInsert;
+    @Nullable
+    private final Destination destination; // Not persisted, only used for its cached item handler.
 
-    public ItemInsertTransportCallback(BlockPos itemHandlerPosition, Direction incomingDirection, ItemStack toInsert) {
+    public ItemInsertTransportCallback(BlockPos itemHandlerPosition, Direction incomingDirection, List<ItemStack> toInsert) {
         this.itemHandlerPosition = itemHandlerPosition;
         this.incomingDirection = incomingDirection;
         this.toInsert = toInsert;
+        this.destination = null;
+    }
+
+    public ItemInsertTransportCallback(Destination destination, List<ItemStack> toInsert) {
+        this.itemHandlerPosition = destination.getReceiver();
+        this.incomingDirection = destination.getIncomingDirection();
+        this.toInsert = toInsert;
+        this.destination = destination;
     }
 
     @Override
     public void call(Network network, World world, BlockPos currentPos, TransportCallback cancelCallback) {
-        TileEntity tile = world.getTileEntity(itemHandlerPosition);
-        if (tile == null) {
-            LOGGER.warn("Destination item handler is gone at " + itemHandlerPosition);
-            cancelCallback.call(network, world, currentPos, cancelCallback);
-            return;
+        IItemHandler itemHandler;
+
+        if (destination != null) {
+            itemHandler = destination.getHandler(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY).orElse(null);
+        } else {
+            TileEntity tile = world.getTileEntity(itemHandlerPosition);
+            if (tile == null) {
+                LOGGER.warn("Destination item handler is gone at " + itemHandlerPosition);
+                cancelCallback.call(network, world, currentPos, cancelCallback);
+                return;
+            }
+
+            itemHandler = tile.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, incomingDirection.getOpposite()).orElse(null);
         }
 
-        IItemHandler itemHandler = tile.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, incomingDirection.getOpposite()).orElse(null);
         if (itemHandler == null) {
             LOGGER.warn("Destination item handler is no longer exposing a capability at " + itemHandlerPosition);
             cancelCallback.call(network, world, currentPos, cancelCallback);
             return;
         }
 
-        if (ItemHandlerHelper.insertItem(itemHandler, toInsert, true).isEmpty()) {
-            ItemHandlerHelper.insertItem(itemHandler, toInsert, false);
-        } else {
-            cancelCallback.call(network, world, currentPos, cancelCallback);
+        // Whatever doesn't fit is split off and handed to the cancel callback.
+        List<ItemStack> remainder = new ArrayList<>();
+
+        for (ItemStack stack : toInsert) {
+            ItemStack remainderOfStack = ItemHandlerHelper.insertItem(itemHandler, stack, false);
+
+            if (!remainderOfStack.isEmpty()) {
+                remainder.add(remainderOfStack);
+            }
+        }
+
+        if (!remainder.isEmpty()) {
+            cancelCallback.withStacks(remainder).call(network, world, currentPos, cancelCallback);
         }
     }
 
@@ -64,7 +94,7 @@ public class ItemInsertTransportCallback implements TransportCallback {
     @Nullable
     public static ItemInsertTransportCallback of(CompoundNBT tag) {
         BlockPos itemHandlerPosition = BlockPos.fromLong(tag.getLong("ihpos"));
-        ItemStack toInsert = ItemStack.read(tag.getCompound("s"));
+        List<ItemStack> toInsert = ItemStackUtil.read(tag, "ss", "s");
         Direction incomingDirection = DirectionUtil.safeGet((byte) tag.getInt("incdir"));
 
         if (toInsert.isEmpty()) {
@@ -78,7 +108,7 @@ public class ItemInsertTransportCallback implements TransportCallback {
     @Override
     public CompoundNBT writeToNbt(CompoundNBT tag) {
         tag.putLong("ihpos", itemHandlerPosition.toLong());
-        tag.put("s", toInsert.write(new CompoundNBT()));
+        tag.put("ss", ItemStackUtil.write(toInsert));
         tag.putInt("incdir", incomingDirection.ordinal());
 
         return tag;
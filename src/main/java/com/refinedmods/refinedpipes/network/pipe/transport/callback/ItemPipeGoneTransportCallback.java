@@ -2,6 +2,7 @@ package com.refinedmods.refinedpipes.network.pipe.transport.callback;
 
 import com.refinedmods.refinedpipes.RefinedPipes;
 import com.refinedmods.refinedpipes.network.Network;
+import com.refinedmods.refinedpipes.util.ItemStackUtil;
 import net.minecraft.inventory.InventoryHelper;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.CompoundNBT;
@@ -12,21 +13,29 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nullable;
+import java.util.List;
 
 public class ItemPipeGoneTransportCallback implements TransportCallback {
     private static final Logger LOGGER = LogManager.getLogger(ItemPipeGoneTransportCallback.class);
 
     public static final ResourceLocation ID = new ResourceLocation(RefinedPipes.ID, "item_pipe_gone");
 
-    private final ItemStack stack;
+    private final List<ItemStack> stacks;
 
-    public ItemPipeGoneTransportCallback(ItemStack stack) {
-        this.stack = stack;
+    public ItemPipeGoneTransportCallback(List<ItemStack> stacks) {
+        this.stacks = stacks;
     }
 
     @Override
     public void call(Network network, World world, BlockPos currentPos, TransportCallback cancelCallback) {
-        InventoryHelper.spawnItemStack(world, currentPos.getX(), currentPos.getY(), currentPos.getZ(), stack);
+        for (ItemStack stack : stacks) {
+            InventoryHelper.spawnItemStack(world, currentPos.getX(), currentPos.getY(), currentPos.getZ(), stack);
+        }
+    }
+
+    @Override
+    public TransportCallback withStacks(List<ItemStack> stacks) {
+        return new ItemPipeGoneTransportCallback(stacks);
     }
 
     @Override
@@ -36,19 +45,19 @@ public class ItemPipeGoneTransportCallback implements TransportCallback {
 
     @Nullable
     public static ItemPipeGoneTransportCallback of(CompoundNBT tag) {
-        ItemStack stack = ItemStack.read(tag.getCompound("s"));
+        List<ItemStack> stacks = ItemStackUtil.read(tag, "ss", "s");
 
-        if (stack.isEmpty()) {
+        if (stacks.isEmpty()) {
             LOGGER.warn("Item no longer exists");
             return null;
         }
 
-        return new ItemPipeGoneTransportCallback(stack);
+        return new ItemPipeGoneTransportCallback(stacks);
     }
 
     @Override
     public CompoundNBT writeToNbt(CompoundNBT tag) {
-        tag.put("s", stack.write(new CompoundNBT()));
+        tag.put("ss", ItemStackUtil.write(stacks));
 
         return tag;
     }
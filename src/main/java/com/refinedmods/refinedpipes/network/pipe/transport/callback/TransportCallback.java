@@ -1,14 +1,22 @@
 package com.refinedmods.refinedpipes.network.pipe.transport.callback;
 
 import com.refinedmods.refinedpipes.network.Network;
+import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 
+import java.util.List;
+
 public interface TransportCallback {
     void call(Network network, World world, BlockPos currentPos, TransportCallback cancelCallback);
 
+    // Used when only part of a transport could be delivered, callbacks that carry stacks should only handle the given ones.
+    default TransportCallback withStacks(List<ItemStack> stacks) {
+        return this;
+    }
+
     ResourceLocation getId();
 
     CompoundNBT writeToNbt(CompoundNBT tag);
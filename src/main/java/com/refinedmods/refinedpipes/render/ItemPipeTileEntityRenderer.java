@@ -40,9 +40,10 @@ public class ItemPipeTileEntityRenderer extends TileEntityRenderer<ItemPipeTileE
                 // For the last pipe we start at Y, and go to ]. We don't want to go to /.
             }
 
-            double maxTicksInPipe = (double) prop.getMaxTicksInPipe() * pipeLength;
+            // The server sends when the item enters and leaves the pipe, the position in between is interpolated.
+            double ticksInPipe = (double) (prop.getEndTick() - prop.getStartTick());
 
-            double v = (((double) prop.getProgress() + partialTicks) / maxTicksInPipe) * pipeLength;
+            double v = (Math.max(0D, (double) (tile.getWorld().getGameTime() - prop.getStartTick()) + partialTicks) / ticksInPipe) * pipeLength;
 
             if (prop.isFirstPipe() && v < 0.25) {
                 dir = prop.getInitialDirection(); // Get the item out first
@@ -0,0 +1,53 @@
+package com.refinedmods.refinedpipes.routing;
+
+import java.util.Arrays;
+
+// Shortest path search for graphs where every edge has the same weight.
+// Gives the same distances as DijkstraAlgorithm, without the priority queue.
+public class BreadthFirstSearch<T> implements ShortestPathAlgorithm<T> {
+    private final IndexedGraph<T> graph;
+    private final int[] queue;
+
+    public BreadthFirstSearch(IndexedGraph<T> graph) {
+        this.graph = graph;
+        this.queue = new int[graph.size()];
+    }
+
+    @Override
+    public ShortestPathTree<T> execute(Node<T> source) {
+        int sourceIndex = graph.getIndex(source.getId());
+        if (sourceIndex == -1) {
+            throw new RuntimeException("Source " + source + " is not part of the graph");
+        }
+
+        int[] distances = new int[graph.size()];
+        int[] predecessors = new int[graph.size()];
+
+        Arrays.fill(distances, Integer.MAX_VALUE);
+        Arrays.fill(predecessors, -1);
+
+        distances[sourceIndex] = 0;
+
+        int head = 0;
+        int tail = 0;
+
+        queue[tail++] = sourceIndex;
+
+        while (head < tail) {
+            int node = queue[head++];
+
+            for (int edge = graph.getEdgesStart(node); edge < graph.getEdgesEnd(node); ++edge) {
+                int target = graph.getEdgeTarget(edge);
+
+                if (distances[target] == Integer.MAX_VALUE) {
+                    distances[target] = distances[node] + graph.getEdgeWeight(edge);
+                    predecessors[target] = node;
+
+                    queue[tail++] = target;
+                }
+            }
+        }
+
+        return new ShortestPathTree<>(graph, sourceIndex, distances, predecessors);
+    }
+}
@@ -0,0 +1,113 @@
+package com.refinedmods.refinedpipes.routing;
+
+import java.util.Arrays;
+
+// Binary min-heap over the int node indices of an IndexedGraph, with support for decreasing the key of a queued node.
+public class IndexedBinaryHeap {
+    private final int[] heap;
+    private final int[] positions;
+    private final int[] keys;
+    private int size;
+
+    public IndexedBinaryHeap(int capacity) {
+        this.heap = new int[capacity];
+        this.positions = new int[capacity];
+        this.keys = new int[capacity];
+
+        Arrays.fill(positions, -1);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void insertOrDecrease(int node, int key) {
+        int position = positions[node];
+
+        if (position == -1) {
+            position = size++;
+
+            heap[position] = node;
+            positions[node] = position;
+        } else if (key >= keys[node]) {
+            return;
+        }
+
+        keys[node] = key;
+
+        siftUp(position);
+    }
+
+    public int poll() {
+        if (size == 0) {
+            throw new RuntimeException("Heap is empty");
+        }
+
+        int node = heap[0];
+
+        positions[node] = -1;
+        size--;
+
+        if (size > 0) {
+            heap[0] = heap[size];
+            positions[heap[0]] = 0;
+
+            siftDown(0);
+        }
+
+        return node;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; ++i) {
+            positions[heap[i]] = -1;
+        }
+
+        size = 0;
+    }
+
+    private void siftUp(int position) {
+        int node = heap[position];
+
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (keys[heap[parent]] <= keys[node]) {
+                break;
+            }
+
+            move(heap[parent], position);
+            position = parent;
+        }
+
+        move(node, position);
+    }
+
+    private void siftDown(int position) {
+        int node = heap[position];
+
+        while (true) {
+            int child = (position << 1) + 1;
+            if (child >= size) {
+                break;
+            }
+
+            if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+                child++;
+            }
+
+            if (keys[heap[child]] >= keys[node]) {
+                break;
+            }
+
+            move(heap[child], position);
+            position = child;
+        }
+
+        move(node, position);
+    }
+
+    private void move(int node, int position) {
+        heap[position] = node;
+        positions[node] = position;
+    }
+}
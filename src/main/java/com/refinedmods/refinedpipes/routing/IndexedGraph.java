@@ -0,0 +1,203 @@
+package com.refinedmods.refinedpipes.routing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compact adjacency (CSR) representation of a Graph.
+// Every node gets an int index, and the outgoing edges of node i are stored at [offsets[i], offsets[i + 1]) in the targets and weights arrays.
+public class IndexedGraph<T> {
+    private final List<Node<T>> nodes;
+    private final Map<T, Integer> indices;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+    private final boolean uniformWeights;
+
+    private IndexedGraph(List<Node<T>> nodes, Map<T, Integer> indices, int[] offsets, int[] targets, int[] weights) {
+        this.nodes = nodes;
+        this.indices = indices;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.uniformWeights = hasUniformWeights(weights);
+    }
+
+    public static <T> IndexedGraph<T> of(Graph<T> graph) {
+        List<Node<T>> nodes = new ArrayList<>(graph.getNodes());
+        Map<T, Integer> indices = new HashMap<>();
+
+        for (int i = 0; i < nodes.size(); ++i) {
+            indices.put(nodes.get(i).getId(), i);
+        }
+
+        List<Edge<T>> edges = graph.getEdges();
+
+        int[] sources = new int[edges.size()];
+        int[] offsets = new int[nodes.size() + 1];
+
+        for (int i = 0; i < edges.size(); ++i) {
+            sources[i] = getIndexOrThrow(indices, edges.get(i).getSource());
+            offsets[sources[i] + 1]++;
+        }
+
+        for (int i = 0; i < nodes.size(); ++i) {
+            offsets[i + 1] += offsets[i];
+        }
+
+        int[] targets = new int[edges.size()];
+        int[] weights = new int[edges.size()];
+        int[] cursors = new int[nodes.size()];
+
+        for (int i = 0; i < edges.size(); ++i) {
+            Edge<T> edge = edges.get(i);
+
+            int slot = offsets[sources[i]] + cursors[sources[i]]++;
+
+            targets[slot] = getIndexOrThrow(indices, edge.getDestination());
+            weights[slot] = edge.getWeight();
+        }
+
+        return new IndexedGraph<>(nodes, indices, offsets, targets, weights);
+    }
+
+    // Adds a node that is only connected to a single existing node, in both directions.
+    // Existing node indices stay the same, the new node gets the last index.
+    public IndexedGraph<T> withLeaf(Node<T> leaf, int neighbour, int weight) {
+        int leafIndex = nodes.size();
+
+        List<Node<T>> newNodes = new ArrayList<>(nodes);
+        newNodes.add(leaf);
+
+        Map<T, Integer> newIndices = new HashMap<>(indices);
+        newIndices.put(leaf.getId(), leafIndex);
+
+        int[] newOffsets = new int[leafIndex + 2];
+        int[] newTargets = new int[targets.length + 2];
+        int[] newWeights = new int[weights.length + 2];
+
+        int edge = 0;
+
+        for (int node = 0; node < leafIndex; ++node) {
+            newOffsets[node] = edge;
+
+            for (int i = offsets[node]; i < offsets[node + 1]; ++i) {
+                newTargets[edge] = targets[i];
+                newWeights[edge++] = weights[i];
+            }
+
+            if (node == neighbour) {
+                newTargets[edge] = leafIndex;
+                newWeights[edge++] = weight;
+            }
+        }
+
+        newOffsets[leafIndex] = edge;
+        newTargets[edge] = neighbour;
+        newWeights[edge++] = weight;
+        newOffsets[leafIndex + 1] = edge;
+
+        return new IndexedGraph<>(newNodes, newIndices, newOffsets, newTargets, newWeights);
+    }
+
+    // Disconnects a node and removes it from the index.
+    // To keep the other node indices stable, the node itself stays behind as an unreachable node without any edges.
+    public IndexedGraph<T> withoutNode(int removed) {
+        Map<T, Integer> newIndices = new HashMap<>(indices);
+        newIndices.remove(nodes.get(removed).getId());
+
+        int[] newOffsets = new int[offsets.length];
+        int[] newTargets = new int[targets.length];
+        int[] newWeights = new int[weights.length];
+
+        int edge = 0;
+
+        for (int node = 0; node < nodes.size(); ++node) {
+            newOffsets[node] = edge;
+
+            if (node == removed) {
+                continue;
+            }
+
+            for (int i = offsets[node]; i < offsets[node + 1]; ++i) {
+                if (targets[i] != removed) {
+                    newTargets[edge] = targets[i];
+                    newWeights[edge++] = weights[i];
+                }
+            }
+        }
+
+        newOffsets[nodes.size()] = edge;
+
+        return new IndexedGraph<>(
+            nodes,
+            newIndices,
+            newOffsets,
+            Arrays.copyOf(newTargets, edge),
+            Arrays.copyOf(newWeights, edge)
+        );
+    }
+
+    private static boolean hasUniformWeights(int[] weights) {
+        for (int weight : weights) {
+            if (weight != weights[0]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static <T> int getIndexOrThrow(Map<T, Integer> indices, Node<T> node) {
+        Integer index = indices.get(node.getId());
+        if (index == null) {
+            throw new RuntimeException("Edge references unknown node " + node);
+        }
+
+        return index;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public int getRemovedNodes() {
+        return nodes.size() - indices.size();
+    }
+
+    public Node<T> getNode(int index) {
+        return nodes.get(index);
+    }
+
+    public int getIndex(T id) {
+        Integer index = indices.get(id);
+
+        return index == null ? -1 : index;
+    }
+
+    public boolean hasUniformWeights() {
+        return uniformWeights;
+    }
+
+    public int getEdgesStart(int node) {
+        return offsets[node];
+    }
+
+    public int getEdgesEnd(int node) {
+        return offsets[node + 1];
+    }
+
+    public int getDegree(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+
+    public int getEdgeTarget(int edge) {
+        return targets[edge];
+    }
+
+    public int getEdgeWeight(int edge) {
+        return weights[edge];
+    }
+}
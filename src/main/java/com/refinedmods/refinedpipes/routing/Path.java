@@ -1,7 +1,5 @@
 package com.refinedmods.refinedpipes.routing;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
 import java.util.List;
 
 public class Path<T> {
@@ -18,14 +16,4 @@ public class Path<T> {
     public int length() {
         return path.size();
     }
-
-    public Deque<T> toQueue() {
-        Deque<T> path = new ArrayDeque<>();
-
-        for (int i = length() - 1; i >= 0; --i) {
-            path.push(at(i).getId());
-        }
-
-        return path;
-    }
 }
@@ -0,0 +1,5 @@
+package com.refinedmods.refinedpipes.routing;
+
+public interface ShortestPathAlgorithm<T> {
+    ShortestPathTree<T> execute(Node<T> source);
+}
@@ -0,0 +1,88 @@
+package com.refinedmods.refinedpipes.routing;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+// The result of a single-source shortest path search: one distance and one predecessor per node of the IndexedGraph.
+// Paths are only materialized when they are asked for.
+public class ShortestPathTree<T> {
+    private final IndexedGraph<T> graph;
+    private final int source;
+    private final int[] distances;
+    private final int[] predecessors;
+
+    public ShortestPathTree(IndexedGraph<T> graph, int source, int[] distances, int[] predecessors) {
+        this.graph = graph;
+        this.source = source;
+        this.distances = distances;
+        this.predecessors = predecessors;
+    }
+
+    // A leaf can only be reached through its single neighbour, so none of the existing distances change.
+    public ShortestPathTree<T> withLeaf(IndexedGraph<T> newGraph, int leaf, int neighbour, int weight) {
+        int[] newDistances = Arrays.copyOf(distances, newGraph.size());
+        int[] newPredecessors = Arrays.copyOf(predecessors, newGraph.size());
+
+        for (int i = distances.length; i < newGraph.size(); ++i) {
+            newDistances[i] = Integer.MAX_VALUE;
+            newPredecessors[i] = -1;
+        }
+
+        if (isReachable(neighbour)) {
+            newDistances[leaf] = distances[neighbour] + weight;
+            newPredecessors[leaf] = neighbour;
+        }
+
+        return new ShortestPathTree<>(newGraph, source, newDistances, newPredecessors);
+    }
+
+    // Only valid for leaves that aren't the source, no other shortest path can go through them.
+    public ShortestPathTree<T> withoutLeaf(IndexedGraph<T> newGraph, int leaf) {
+        if (leaf == source) {
+            throw new RuntimeException("Cannot remove the source of a shortest path tree");
+        }
+
+        int[] newDistances = Arrays.copyOf(distances, newGraph.size());
+        int[] newPredecessors = Arrays.copyOf(predecessors, newGraph.size());
+
+        newDistances[leaf] = Integer.MAX_VALUE;
+        newPredecessors[leaf] = -1;
+
+        return new ShortestPathTree<>(newGraph, source, newDistances, newPredecessors);
+    }
+
+    public Node<T> getSource() {
+        return graph.getNode(source);
+    }
+
+    public boolean isReachable(int node) {
+        return distances[node] != Integer.MAX_VALUE;
+    }
+
+    public int getDistance(int node) {
+        return distances[node];
+    }
+
+    @Nullable
+    public Path<T> getPath(int target) {
+        if (!isReachable(target)) {
+            return null;
+        }
+
+        int length = 1;
+        for (int step = target; step != source; step = predecessors[step]) {
+            length++;
+        }
+
+        @SuppressWarnings("unchecked")
+        Node<T>[] nodes = new Node[length];
+
+        int step = target;
+        for (int i = length - 1; i >= 0; --i) {
+            nodes[i] = graph.getNode(step);
+            step = predecessors[step];
+        }
+
+        return new Path<>(Arrays.asList(nodes));
+    }
+}
@@ -10,6 +10,7 @@ import com.refinedmods.refinedpipes.item.AttachmentItem;
 import com.refinedmods.refinedpipes.item.EnergyPipeBlockItem;
 import com.refinedmods.refinedpipes.item.FluidPipeBlockItem;
 import com.refinedmods.refinedpipes.item.ItemPipeBlockItem;
+import com.refinedmods.refinedpipes.network.Network;
 import com.refinedmods.refinedpipes.network.NetworkManager;
 import com.refinedmods.refinedpipes.network.NetworkRegistry;
 import com.refinedmods.refinedpipes.network.energy.EnergyNetworkFactory;
@@ -43,9 +44,12 @@ import net.minecraft.block.Block;
 import net.minecraft.inventory.container.ContainerType;
 import net.minecraft.item.Item;
 import net.minecraft.tileentity.TileEntityType;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.server.ServerWorld;
 import net.minecraftforge.common.extensions.IForgeContainerType;
 import net.minecraftforge.event.RegistryEvent;
 import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.world.ChunkEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 
 public class CommonSetup {
@@ -148,7 +152,30 @@ public class CommonSetup {
     @SubscribeEvent
     public void onWorldTick(TickEvent.WorldTickEvent e) {
         if (!e.world.isRemote && e.phase == TickEvent.Phase.END) {
-            NetworkManager.get(e.world).getNetworks().forEach(n -> n.update(e.world));
+            NetworkManager manager = NetworkManager.get(e.world);
+
+            manager.scanScheduledNetworks();
+            for (Network network : manager.getNetworks()) {
+                if (manager.isNetworkLoaded(network)) {
+                    network.update(e.world);
+                } else {
+                    network.freeze(e.world);
+                }
+            }
+        }
+    }
+
+    @SubscribeEvent
+    public void onChunkLoad(ChunkEvent.Load e) {
+        if (e.getWorld() instanceof ServerWorld && e.getChunk() instanceof Chunk) {
+            NetworkManager.get((ServerWorld) e.getWorld()).onChunkLoaded(e.getChunk().getPos());
+        }
+    }
+
+    @SubscribeEvent
+    public void onChunkUnload(ChunkEvent.Unload e) {
+        if (e.getWorld() instanceof ServerWorld) {
+            NetworkManager.get((ServerWorld) e.getWorld()).onChunkUnloaded(e.getChunk().getPos());
         }
     }
 }
@@ -6,14 +6,14 @@ import com.refinedmods.refinedpipes.network.pipe.item.ItemPipeType;
 import com.refinedmods.refinedpipes.network.pipe.transport.ItemTransport;
 import com.refinedmods.refinedpipes.network.pipe.transport.ItemTransportProps;
 import net.minecraft.inventory.InventoryHelper;
-import net.minecraft.tileentity.ITickableTileEntity;
+import net.minecraft.item.ItemStack;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 
 import java.util.ArrayList;
 import java.util.List;
 
-public class ItemPipeTileEntity extends PipeTileEntity implements ITickableTileEntity {
+public class ItemPipeTileEntity extends PipeTileEntity {
     private List<ItemTransportProps> props = new ArrayList<>();
 
     private final ItemPipeType type;
@@ -24,13 +24,6 @@ public class ItemPipeTileEntity extends PipeTileEntity implements ITickableTileE
         this.type = type;
     }
 
-    @Override
-    public void tick() {
-        if (world.isRemote) {
-            props.forEach(ItemTransportProps::tick);
-        }
-    }
-
     public List<ItemTransportProps> getProps() {
         return props;
     }
@@ -44,7 +37,9 @@ public class ItemPipeTileEntity extends PipeTileEntity implements ITickableTileE
         super.spawnDrops(pipe);
 
         for (ItemTransport transport : ((ItemPipe) pipe).getTransports()) {
-            InventoryHelper.spawnItemStack(world, pos.getX(), pos.getY(), pos.getZ(), transport.getValue());
+            for (ItemStack stack : transport.getStacks()) {
+                InventoryHelper.spawnItemStack(world, pos.getX(), pos.getY(), pos.getZ(), stack);
+            }
         }
     }
 
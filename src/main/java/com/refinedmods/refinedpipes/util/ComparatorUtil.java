@@ -0,0 +1,15 @@
+package com.refinedmods.refinedpipes.util;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+public class ComparatorUtil {
+    // Returns -1 for blocks without a comparator output.
+    // Most inventories compute the output by walking all of their slots, so this isn't free.
+    public static int getLevel(World world, BlockPos pos) {
+        BlockState state = world.getBlockState(pos);
+
+        return state.hasComparatorInputOverride() ? state.getComparatorInputOverride(world, pos) : -1;
+    }
+}
@@ -0,0 +1,56 @@
+package com.refinedmods.refinedpipes.util;
+
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.INBT;
+import net.minecraft.nbt.ListNBT;
+import net.minecraftforge.common.util.Constants;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ItemStackUtil {
+    public static List<ItemStack> copy(List<ItemStack> stacks) {
+        List<ItemStack> copies = new ArrayList<>(stacks.size());
+
+        for (ItemStack stack : stacks) {
+            copies.add(stack.copy());
+        }
+
+        return copies;
+    }
+
+    public static ListNBT write(List<ItemStack> stacks) {
+        ListNBT list = new ListNBT();
+
+        for (ItemStack stack : stacks) {
+            list.add(stack.write(new CompoundNBT()));
+        }
+
+        return list;
+    }
+
+    // Reads the list at listKey, or a single stack at singleKey for data written before stacks were stored as a list.
+    // Stacks of items that no longer exist are left out.
+    public static List<ItemStack> read(CompoundNBT tag, String listKey, String singleKey) {
+        List<ItemStack> stacks = new ArrayList<>();
+
+        if (tag.contains(listKey)) {
+            for (INBT stackTag : tag.getList(listKey, Constants.NBT.TAG_COMPOUND)) {
+                ItemStack stack = ItemStack.read((CompoundNBT) stackTag);
+
+                if (!stack.isEmpty()) {
+                    stacks.add(stack);
+                }
+            }
+        } else {
+            ItemStack stack = ItemStack.read(tag.getCompound(singleKey));
+
+            if (!stack.isEmpty()) {
+                stacks.add(stack);
+            }
+        }
+
+        return stacks;
+    }
+}